@@ -0,0 +1,301 @@
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CodingErrorAction;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * Writer care codifica textul direct intr-un buffer de octeti si preda bufferele pline unui AsyncOutput
+ * Nu este thread-safe: un writer este folosit de un singur thread(la fel ca PrintWriterele din Main)
+ * Erorile de scriere apar pe threadul de scriere si sunt raportate la urmatorul apel al writerului
+ */
+public class AsyncFileWriter extends Writer
+{
+    /**
+     * Subsistemul care scrie efectiv bufferele
+     */
+    private AsyncOutput output;
+    /**
+     * Canalul fisierului(folosit doar de threadul de scriere)
+     */
+    private FileChannel channel;
+    /**
+     * Bufferul care se umple in prezent
+     */
+    private ByteBuffer current;
+    /**
+     * Encoderul pentru caracterele non-ASCII(charsetul implicit, la fel ca PrintWriter)
+     */
+    private CharsetEncoder encoder;
+    /**
+     * Prima eroare aparuta pe threadul de scriere
+     */
+    private volatile IOException failure = null;
+    /**
+     * true daca writerul a fost inchis
+     */
+    private boolean closed = false;
+    /**
+     * Devine 0 cand threadul de scriere a inchis fisierul
+     */
+    private CountDownLatch channelClosed = new CountDownLatch(1);
+
+    /**
+     * Construieste un obiect de tip AsyncFileWriter
+     *
+     * @param output  subsistemul care scrie bufferele
+     * @param channel canalul fisierului
+     */
+    AsyncFileWriter(AsyncOutput output, FileChannel channel)
+    {
+        this.output = output;
+        this.channel = channel;
+        this.current = output.acquireBuffer();
+        this.encoder = Charset.defaultCharset().newEncoder()
+                              .onMalformedInput(CodingErrorAction.REPLACE)
+                              .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    }
+
+    /**
+     * Verifica starea writerului inainte de o scriere
+     *
+     * @throws IOException daca writerul este inchis sau o scriere anterioara a esuat
+     */
+    private void ensureOpen() throws IOException
+    {
+        if(closed)
+        {
+            throw new IOException("Stream closed");
+        }
+
+        if(failure != null)
+        {
+            throw failure;
+        }
+    }
+
+    /**
+     * Preda bufferul curent threadului de scriere(daca nu este gol) si ia un buffer nou
+     *
+     * @throws IOException daca threadul curent este intrerupt
+     */
+    private void submitCurrent() throws IOException
+    {
+        if(current.position() == 0)
+        {
+            return;
+        }
+
+        current.flip();
+        output.submit(this, current);
+        current = output.acquireBuffer();
+    }
+
+    /**
+     * Scrie un caracter
+     *
+     * @param c caracterul
+     * @throws IOException daca writerul este inchis sau o scriere anterioara a esuat
+     */
+    public void write(int c) throws IOException
+    {
+        ensureOpen();
+
+        if(c < 0x80)
+        {
+            if(!current.hasRemaining())
+            {
+                submitCurrent();
+            }
+
+            current.put((byte)c);
+        }
+        else
+        {
+            encode(CharBuffer.wrap(new char[] {(char)c}));
+        }
+    }
+
+    /**
+     * Scrie o bucata dintr-un tablou de caractere
+     *
+     * @param chars  caracterele
+     * @param offset pozitia primului caracter
+     * @param length numarul de caractere
+     * @throws IOException daca writerul este inchis sau o scriere anterioara a esuat
+     */
+    public void write(char[] chars, int offset, int length) throws IOException
+    {
+        ensureOpen();
+
+        int end = offset + length;
+        for(int i = offset; i < end; i++)
+        {
+            char c = chars[i];
+
+            if(c >= 0x80)
+            {
+                //restul textului trece prin encoder
+                encode(CharBuffer.wrap(chars, i, end - i));
+                return;
+            }
+
+            if(!current.hasRemaining())
+            {
+                submitCurrent();
+            }
+
+            current.put((byte)c);
+        }
+    }
+
+    /**
+     * Scrie o bucata dintr-un string
+     *
+     * @param str    stringul
+     * @param offset pozitia primului caracter
+     * @param length numarul de caractere
+     * @throws IOException daca writerul este inchis sau o scriere anterioara a esuat
+     */
+    public void write(String str, int offset, int length) throws IOException
+    {
+        ensureOpen();
+
+        int end = offset + length;
+        for(int i = offset; i < end; i++)
+        {
+            char c = str.charAt(i);
+
+            if(c >= 0x80)
+            {
+                //restul textului trece prin encoder
+                encode(CharBuffer.wrap(str, i, end));
+                return;
+            }
+
+            if(!current.hasRemaining())
+            {
+                submitCurrent();
+            }
+
+            current.put((byte)c);
+        }
+    }
+
+    /**
+     * Codifica un text care contine caractere non-ASCII
+     *
+     * @param chars textul
+     * @throws IOException daca threadul curent este intrerupt
+     */
+    private void encode(CharBuffer chars) throws IOException
+    {
+        while(true)
+        {
+            if(encoder.encode(chars, current, true).isOverflow())
+            {
+                submitCurrent();
+            }
+            else
+            {
+                break;
+            }
+        }
+
+        encoder.reset();
+    }
+
+    /**
+     * Preda threadului de scriere tot ce a fost scris pana acum, fara sa astepte scrierea efectiva
+     *
+     * @throws IOException daca o scriere anterioara a esuat
+     */
+    public void flush() throws IOException
+    {
+        ensureOpen();
+        submitCurrent();
+    }
+
+    /**
+     * Preda bufferul ramas, asteapta ca toate bufferele sa fie scrise si inchide fisierul
+     *
+     * @throws IOException daca o scriere a esuat
+     */
+    public void close() throws IOException
+    {
+        if(closed)
+        {
+            return;
+        }
+
+        submitCurrent();
+        closed = true;
+        output.submit(this, null);
+
+        try
+        {
+            channelClosed.await();
+        }
+        catch(InterruptedException ex)
+        {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException();
+        }
+
+        if(failure != null)
+        {
+            throw failure;
+        }
+    }
+
+    /**
+     * Scrie un grup de buffere in fisier(apelata doar de threadul de scriere)
+     *
+     * @param buffers bufferele, in ordine
+     */
+    void writeBuffers(ByteBuffer[] buffers)
+    {
+        if(failure != null)
+        {
+            return;
+        }
+
+        try
+        {
+            ByteBuffer last = buffers[buffers.length - 1];
+            while(last.hasRemaining())
+            {
+                channel.write(buffers);
+            }
+        }
+        catch(IOException ex)
+        {
+            failure = ex;
+        }
+    }
+
+    /**
+     * Inchide fisierul(apelata doar de threadul de scriere)
+     */
+    void closeChannel()
+    {
+        try
+        {
+            channel.close();
+        }
+        catch(IOException ex)
+        {
+            if(failure == null)
+            {
+                failure = ex;
+            }
+        }
+
+        channelClosed.countDown();
+    }
+}
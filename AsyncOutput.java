@@ -0,0 +1,222 @@
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.concurrent.ArrayBlockingQueue;
+
+/**
+ * Subsistemul de scriere asincrona a fisierelor de output si de erori
+ * Writerele(AsyncFileWriter) umplu buffere directe mari si le predau, printr-o coada limitata, unui singur
+ * thread de scriere. Threadul scrie bufferele in ordinea in care au fost predate, grupand bufferele consecutive
+ * ale aceluiasi fisier intr-o singura scriere(gathering write). Cand discul este mai lent decat comenzile,
+ * coada se umple si writerele asteapta(backpressure)
+ */
+public class AsyncOutput implements Runnable
+{
+    /**
+     * Dimensiunea unui buffer de octeti
+     */
+    static final int BUFFER_SIZE = 1 << 18;
+    /**
+     * Numarul maxim de buffere care asteapta sa fie scrise
+     */
+    private static final int QUEUE_CAPACITY = 16;
+
+    /**
+     * O cerere pentru threadul de scriere
+     */
+    private static class PendingWrite
+    {
+        /**
+         * Writerul caruia ii apartine cererea(null pentru oprirea threadului)
+         */
+        AsyncFileWriter target;
+        /**
+         * Octetii ce trebuie scrisi(null pentru inchiderea fisierului)
+         */
+        ByteBuffer data;
+
+        PendingWrite(AsyncFileWriter target, ByteBuffer data)
+        {
+            this.target = target;
+            this.data = data;
+        }
+    }
+
+    /**
+     * Cererile care asteapta sa fie procesate, in ordinea in care au fost predate
+     */
+    private ArrayBlockingQueue<PendingWrite> pendingWrites = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+    /**
+     * Bufferele deja scrise, refolosite de writere
+     */
+    private ArrayBlockingQueue<ByteBuffer> freeBuffers = new ArrayBlockingQueue<>(QUEUE_CAPACITY * 2);
+    /**
+     * Threadul de scriere
+     */
+    private Thread writerThread;
+
+    /**
+     * Construieste un obiect de tip AsyncOutput si porneste threadul de scriere
+     */
+    public AsyncOutput()
+    {
+        writerThread = new Thread(this, "output-writer");
+        writerThread.setDaemon(true);
+        writerThread.start();
+    }
+
+    /**
+     * Deschide(sau creeaza) un fisier pentru scriere asincrona, stergandu-i continutul anterior
+     *
+     * @param fileName numele fisierului
+     * @return writerul asociat fisierului
+     * @throws IOException daca fisierul nu poate sa fie deschis
+     */
+    public AsyncFileWriter open(String fileName) throws IOException
+    {
+        FileChannel channel = FileChannel.open(Paths.get(fileName), StandardOpenOption.CREATE,
+                                               StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+
+        return new AsyncFileWriter(this, channel);
+    }
+
+    /**
+     * Intoarce un buffer gol, refolosit daca exista unul liber
+     *
+     * @return bufferul
+     */
+    ByteBuffer acquireBuffer()
+    {
+        ByteBuffer buffer = freeBuffers.poll();
+
+        if(buffer == null)
+        {
+            buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        }
+
+        return buffer;
+    }
+
+    /**
+     * Preda un buffer plin threadului de scriere, asteptand daca coada este plina
+     *
+     * @param target writerul caruia ii apartine bufferul
+     * @param data   bufferul, pregatit pentru citire(flip)
+     * @throws IOException daca threadul curent este intrerupt in timp ce asteapta
+     */
+    void submit(AsyncFileWriter target, ByteBuffer data) throws IOException
+    {
+        try
+        {
+            pendingWrites.put(new PendingWrite(target, data));
+        }
+        catch(InterruptedException ex)
+        {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException();
+        }
+    }
+
+    /**
+     * Opreste threadul de scriere dupa ce toate cererile predate pana acum au fost procesate
+     */
+    public void shutdown()
+    {
+        try
+        {
+            pendingWrites.put(new PendingWrite(null, null));
+            writerThread.join();
+        }
+        catch(InterruptedException ex)
+        {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Bucla threadului de scriere
+     */
+    public void run()
+    {
+        ArrayList<PendingWrite> batch = new ArrayList<>();
+
+        try
+        {
+            while(true)
+            {
+                //asteptam o cerere, apoi le luam si pe toate care s-au adunat intre timp
+                batch.add(pendingWrites.take());
+                pendingWrites.drainTo(batch);
+
+                if(!processBatch(batch))
+                {
+                    return;
+                }
+
+                batch.clear();
+            }
+        }
+        catch(InterruptedException ex)
+        {
+            //threadul este daemon, se opreste odata cu programul
+        }
+    }
+
+    /**
+     * Proceseaza un grup de cereri, in ordine
+     *
+     * @param batch cererile
+     * @return false, daca threadul trebuie oprit
+     *         true, altfel
+     */
+    private boolean processBatch(ArrayList<PendingWrite> batch)
+    {
+        int index = 0;
+
+        while(index < batch.size())
+        {
+            PendingWrite first = batch.get(index);
+
+            if(first.target == null)
+            {
+                return false;
+            }
+
+            if(first.data == null)
+            {
+                first.target.closeChannel();
+                index++;
+                continue;
+            }
+
+            //bufferele consecutive ale aceluiasi fisier sunt scrise impreuna
+            int end = index + 1;
+            while(end < batch.size() && batch.get(end).target == first.target && batch.get(end).data != null)
+            {
+                end++;
+            }
+
+            ByteBuffer[] buffers = new ByteBuffer[end - index];
+            for(int i = index; i < end; i++)
+            {
+                buffers[i - index] = batch.get(i).data;
+            }
+
+            first.target.writeBuffers(buffers);
+
+            for(ByteBuffer buffer : buffers)
+            {
+                buffer.clear();
+                freeBuffers.offer(buffer);
+            }
+
+            index = end;
+        }
+
+        return true;
+    }
+}
@@ -1,5 +1,9 @@
-import java.util.LinkedList;
-import java.util.Scanner;
+import java.io.IOException;
+import java.nio.file.InvalidPathException;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.regex.Matcher;
 
 /**
  * Interfata implementata de fiecare comanda
@@ -79,13 +83,8 @@ class LSCommand implements Command
         if(!path.equals(""))
         {
             //Daca ls nu este apelata pe directorul curent, converteste calea la o referinta catre un director
-            PathTokenizer pathTokenizer = new PathTokenizer(path, fileSystem);
-            LinkedList<String> tokensList = pathTokenizer.getTokensQueue();
-
-            if(tokensList != null)
-            {
-                directory = fileSystem.getReference(tokensList, NodeType.DirectoryNode);
-            }
+            PathResolver pathResolver = new PathResolver(path, fileSystem);
+            directory = pathResolver.getReference(NodeType.DirectoryNode);
         }
         else
         {
@@ -115,7 +114,7 @@ class LSCommand implements Command
         {
             if(shouldPrint)
             {
-                Main.errorFileWriter.println("ls: " + path + ": No such directory");
+                Session.error().println("ls: " + path + ": No such directory");
             }
         }
     }
@@ -174,13 +173,8 @@ class CDCommand implements Command
     {
         this.path = path;
 
-        PathTokenizer pathTokenizer = new PathTokenizer(path, fileSystem);
-        LinkedList<String> tokensList  = pathTokenizer.getTokensQueue();
-
-        if(tokensList != null)
-        {
-            directory = fileSystem.getReference(tokensList, NodeType.DirectoryNode);
-        }
+        PathResolver pathResolver = new PathResolver(path, fileSystem);
+        directory = pathResolver.getReference(NodeType.DirectoryNode);
     }
 
     /*
@@ -195,7 +189,7 @@ class CDCommand implements Command
         }
         else
         {
-             Main.errorFileWriter.println("cd: " + path + ": No such directory");
+             Session.error().println("cd: " + path + ": No such directory");
         }
     }
 }
@@ -238,22 +232,13 @@ class CPCommand implements Command
         this.source     = source;
         this.destFolder = destFolder;
 
-        PathTokenizer sourcePathTokenizer    = new PathTokenizer(source, fileSystem);
-        LinkedList<String> sourceTokensList  = sourcePathTokenizer.getTokensQueue();
-
-        PathTokenizer destPathTokenizer   = new PathTokenizer(destFolder, fileSystem);
-        LinkedList<String> destTokensList = destPathTokenizer.getTokensQueue();
+        PathResolver sourcePathResolver = new PathResolver(source, fileSystem);
+        PathResolver destPathResolver   = new PathResolver(destFolder, fileSystem);
 
-        if(destTokensList != null)
-        {
-            destDirectory = fileSystem.getReference(destTokensList, NodeType.DirectoryNode);
-        }
+        destDirectory = destPathResolver.getReference(NodeType.DirectoryNode);
 
-        if(sourceTokensList != null)
-        {
-            sourceName = sourceTokensList.getLast(); //numele sursei este ultimul token
-            sourceNode = fileSystem.getReference(sourceTokensList, NodeType.AnyNode);
-        }
+        sourceName = sourcePathResolver.getLastName(); //numele sursei este ultimul token
+        sourceNode = sourcePathResolver.getReference(NodeType.AnyNode);
     }
 
     /*
@@ -263,15 +248,40 @@ class CPCommand implements Command
     {
         if(sourceNode == null)
         {
-            Main.errorFileWriter.println("cp: cannot copy " + source + ": No such file or directory");
+            Session.error().println("cp: cannot copy " + source + ": No such file or directory");
         }
         else if(destDirectory == null)
         {
-            Main.errorFileWriter.println("cp: cannot copy into " + destFolder + ": No such directory");
+            Session.error().println("cp: cannot copy into " + destFolder + ": No such directory");
+        }
+        else if(TreeLocks.isEnabled())
+        {
+            /*
+                In modul concurent, subarborele este copiat inainte de a lua lacatul destinatiei(copierea ia
+                lacatele de citire ale folderelor sursa), apoi verificarea si legarea copiei sunt facute sub lacat
+             */
+            FileSystem copy = sourceNode.copy();
+
+            TreeLocks.lockWrite(destDirectory);
+            try
+            {
+                if(destDirectory.find(sourceName))
+                {
+                    Session.error().println("cp: cannot copy " + source + ": Node exists at destination");
+                }
+                else
+                {
+                    destDirectory.add(copy);
+                }
+            }
+            finally
+            {
+                TreeLocks.unlockWrite(destDirectory);
+            }
         }
         else if(destDirectory.find(sourceName))
         {
-            Main.errorFileWriter.println("cp: cannot copy " + source + ": Node exists at destination");
+            Session.error().println("cp: cannot copy " + source + ": Node exists at destination");
         }
         else
         {
@@ -318,22 +328,13 @@ class MVCommand implements Command
         this.source     = source;
         this.destFolder = destFolder;
 
-        PathTokenizer sourcePathTokenizer    = new PathTokenizer(source, fileSystem);
-        LinkedList<String> sourceTokensList  = sourcePathTokenizer.getTokensQueue();
-
-        PathTokenizer destPathTokenizer    = new PathTokenizer(destFolder, fileSystem);
-        LinkedList<String> destTokensList  = destPathTokenizer.getTokensQueue();
+        PathResolver sourcePathResolver = new PathResolver(source, fileSystem);
+        PathResolver destPathResolver   = new PathResolver(destFolder, fileSystem);
 
-        if(destTokensList != null)
-        {
-            destDirectory = fileSystem.getReference(destTokensList, NodeType.DirectoryNode);
-        }
+        destDirectory = destPathResolver.getReference(NodeType.DirectoryNode);
 
-        if(sourceTokensList != null)
-        {
-            sourceName = sourceTokensList.getLast();
-            sourceNode = fileSystem.getReference(sourceTokensList, NodeType.AnyNode);
-        }
+        sourceName = sourcePathResolver.getLastName();
+        sourceNode = sourcePathResolver.getReference(NodeType.AnyNode);
     }
 
     /**
@@ -343,15 +344,45 @@ class MVCommand implements Command
     {
         if(sourceNode == null)
         {
-            Main.errorFileWriter.println("mv: cannot move " + source + ": No such file or directory");
+            Session.error().println("mv: cannot move " + source + ": No such file or directory");
         }
         else if(destDirectory == null)
         {
-            Main.errorFileWriter.println("mv: cannot move into " + destFolder + ": No such directory");
+            Session.error().println("mv: cannot move into " + destFolder + ": No such directory");
+        }
+        else
+        {
+            //in modul concurent, parintele sursei nu se mai poate schimba cat timp este detinut lacatul mutarilor
+            TreeLocks.lockMove();
+            FileSystem sourceParent = sourceNode.getNodeParent();
+            TreeLocks.lockWrite(sourceParent, destDirectory);
+            try
+            {
+                move();
+            }
+            finally
+            {
+                TreeLocks.unlockWrite(sourceParent, destDirectory);
+                TreeLocks.unlockMove();
+            }
+        }
+    }
+
+    /**
+     * Verifica destinatia si muta sursa(lacatele necesare sunt deja luate)
+     */
+    private void move()
+    {
+        FileSystem sourceParent = sourceNode.getNodeParent();
+
+        if(TreeLocks.isEnabled() && sourceParent != null && sourceParent.getChild(sourceNode.getName()) != sourceNode)
+        {
+            //sursa a fost stearsa sau mutata de o alta sesiune dupa ce calea a fost rezolvata
+            Session.error().println("mv: cannot move " + source + ": No such file or directory");
         }
         else if(destDirectory.find(sourceName))
         {
-            Main.errorFileWriter.println("mv: cannot move " + source + ": Node exists at destination");
+            Session.error().println("mv: cannot move " + source + ": Node exists at destination");
         }
         else
         {
@@ -390,13 +421,8 @@ class RMCommand implements Command
         this.shouldPrint = shouldPrint;
         this.path = path;
 
-        PathTokenizer pathTokenizer = new PathTokenizer(path, fileSystem);
-        LinkedList<String> tokensList = pathTokenizer.getTokensQueue();
-
-        if(tokensList != null)
-        {
-            node = fileSystem.getReference(tokensList, NodeType.AnyNode);
-        }
+        PathResolver pathResolver = new PathResolver(path, fileSystem);
+        node = pathResolver.getReference(NodeType.AnyNode);
     }
 
     /**
@@ -408,7 +434,7 @@ class RMCommand implements Command
         {
             if(shouldPrint)
             {
-                Main.errorFileWriter.println("rm: cannot remove " + path + ": No such file or directory");
+                Session.error().println("rm: cannot remove " + path + ": No such file or directory");
             }
         }
         else
@@ -448,18 +474,24 @@ class TouchCommand implements Command
      * @param shouldPrint  true daca trebuie afisate mesaje de eroare
      */
     public TouchCommand(FileSystem fileSystem, String filePath, boolean shouldPrint)
+    {
+        this(new PathResolver(filePath, fileSystem), filePath, shouldPrint);
+    }
+
+    /**
+     * Construieste o comanda touch pentru o cale deja rezolvata
+     *
+     * @param pathResolver Calea rezolvata unde trebuie creat fisierul
+     * @param filePath     Calea unde trebuie creat fisierul, folosita in mesajele de eroare
+     * @param shouldPrint  true daca trebuie afisate mesaje de eroare
+     */
+    public TouchCommand(PathResolver pathResolver, String filePath, boolean shouldPrint)
     {
         this.shouldPrint = shouldPrint;
         originalPath = filePath;
 
-        PathTokenizer pathTokenizer = new PathTokenizer(filePath, fileSystem);
-        LinkedList<String> tokensList  = pathTokenizer.getTokensQueue();
-
-        if(tokensList != null)
-        {
-            fileName = tokensList.removeLast();
-            directory = fileSystem.getReference(tokensList, NodeType.DirectoryNode);
-        }
+        fileName  = pathResolver.getLastName();
+        directory = pathResolver.getParentDirectory();
     }
 
     /**
@@ -469,25 +501,34 @@ class TouchCommand implements Command
     {
         if(directory != null)
         {
-            if(directory.find(fileName)) // verifica daca exista deja un folder/fisier cu acelasi nume
+            //verificarea si crearea sunt facute sub acelasi lacat, astfel nu pot fi intercalate cu alte sesiuni
+            TreeLocks.lockWrite(directory);
+            try
             {
-                originalPath = directory.getPath();
-                if(originalPath.equals("/"))
+                if(directory.find(fileName)) // verifica daca exista deja un folder/fisier cu acelasi nume
                 {
-                    //Daca pathul este catre root, adauga doar numele fisierului
-                    originalPath = originalPath + fileName;
+                    originalPath = directory.getPath();
+                    if(originalPath.equals("/"))
+                    {
+                        //Daca pathul este catre root, adauga doar numele fisierului
+                        originalPath = originalPath + fileName;
+                    }
+                    else
+                    {
+                        //Altfel adauga / urmat de numele fisierului
+                        originalPath = originalPath + "/" +  fileName;
+                    }
+
+                    Session.error().println("touch: cannot create file " + originalPath + ": Node exists");
                 }
                 else
                 {
-                    //Altfel adauga / urmat de numele fisierului
-                    originalPath = originalPath + "/" +  fileName;
+                    directory.touch(fileName);
                 }
-
-                Main.errorFileWriter.println("touch: cannot create file " + originalPath + ": Node exists");
             }
-            else
+            finally
             {
-                directory.touch(fileName);
+                TreeLocks.unlockWrite(directory);
             }
         }
         else
@@ -500,7 +541,7 @@ class TouchCommand implements Command
                     originalPath = originalPath.substring(0, originalPath.lastIndexOf("/"));
                 }
 
-                Main.errorFileWriter.println("touch: " + originalPath + ": No such directory");
+                Session.error().println("touch: " + originalPath + ": No such directory");
             }
         }
     }
@@ -537,17 +578,23 @@ class MKDirCommand implements Command
      */
     public MKDirCommand(FileSystem fileSystem, String folderPath, boolean shouldPrint)
     {
-        this.shouldPrint = shouldPrint;
+        this(new PathResolver(folderPath, fileSystem), folderPath, shouldPrint);
+    }
 
+    /**
+     * Construieste o comanda mkdir pentru o cale deja rezolvata
+     *
+     * @param pathResolver Calea rezolvata unde trebuie creat folderul
+     * @param folderPath   Calea catre folderul ce trebuie creat, folosita in mesajele de eroare
+     * @param shouldPrint  true daca trebuie afisate mesaje de eroare
+     */
+    public MKDirCommand(PathResolver pathResolver, String folderPath, boolean shouldPrint)
+    {
+        this.shouldPrint = shouldPrint;
         originalPath = folderPath;
-        PathTokenizer pathTokenizer = new PathTokenizer(folderPath, fileSystem);
-        LinkedList<String> tokensList  = pathTokenizer.getTokensQueue();
 
-        if(tokensList != null)
-        {
-            directoryName = tokensList.removeLast();
-            directory = fileSystem.getReference(tokensList, NodeType.DirectoryNode);
-        }
+        directoryName = pathResolver.getLastName();
+        directory     = pathResolver.getParentDirectory();
     }
 
     /**
@@ -557,26 +604,35 @@ class MKDirCommand implements Command
     {
         if(directory != null)
         {
-            if(directory.find(directoryName))
+            //verificarea si crearea sunt facute sub acelasi lacat, astfel nu pot fi intercalate cu alte sesiuni
+            TreeLocks.lockWrite(directory);
+            try
             {
-                originalPath = directory.getPath();
-
-                if(originalPath.equals("/"))
+                if(directory.find(directoryName))
                 {
-                    //Daca pathul este catre root, adauga doar numele fisierului
-                    originalPath = originalPath + directoryName;
+                    originalPath = directory.getPath();
+
+                    if(originalPath.equals("/"))
+                    {
+                        //Daca pathul este catre root, adauga doar numele fisierului
+                        originalPath = originalPath + directoryName;
+                    }
+                    else
+                    {
+                        //Altfel adauga / urmat de numele fisierului
+                        originalPath = originalPath + "/" +  directoryName;
+                    }
+
+                    Session.error().println("mkdir: cannot create directory " + originalPath + ": Node exists");
                 }
                 else
                 {
-                    //Altfel adauga / urmat de numele fisierului
-                    originalPath = originalPath + "/" +  directoryName;
+                    directory.mkdir(directoryName);
                 }
-
-                Main.errorFileWriter.println("mkdir: cannot create directory " + originalPath + ": Node exists");
             }
-            else
+            finally
             {
-                directory.mkdir(directoryName);
+                TreeLocks.unlockWrite(directory);
             }
         }
         else
@@ -588,7 +644,7 @@ class MKDirCommand implements Command
                     //Elimina numele fisierului din cale
                     originalPath = originalPath.substring(0, originalPath.lastIndexOf("/"));
                 }
-                Main.errorFileWriter.println("mkdir: " + originalPath + ": No such directory");
+                Session.error().println("mkdir: " + originalPath + ": No such directory");
             }
         }
     }
@@ -604,9 +660,13 @@ class GrepCommand implements Command
      */
     private FileSystem fileSystem;
     /**
-     * Patternul pe care sirurile trebuie sa il respecte
+     * Patternul pe care sirurile trebuie sa il respecte(compilat la prima verificare)
      */
-    private String regexPattern;
+    private LazyPattern regexPattern;
+    /**
+     * Matcher-ul patternului compilat, refolosit pentru fiecare sir verificat
+     */
+    private Matcher regexMatcher;
     /**
      * Sirul ce trebuie verificat
      */
@@ -624,11 +684,30 @@ class GrepCommand implements Command
      */
     public GrepCommand(FileSystem fileSystem, String regexPattern)
     {
-        regexPattern = regexPattern.replaceAll("\"", ""); //sterge "" din pattern
+        this(fileSystem, new LazyPattern(regexPattern.replace("\"", ""))); //sterge "" din pattern
+    }
 
+    /**
+     * Construieste o comanda grep dintr-un pattern deja pregatit(fara "")
+     *
+     * @param fileSystem   Referinta catre sistemul de fisiere
+     * @param regexPattern Patternul regex
+     */
+    public GrepCommand(FileSystem fileSystem, LazyPattern regexPattern)
+    {
         this.fileSystem   = fileSystem;
         this.regexPattern = regexPattern;
+    }
 
+    /**
+     * Construieste o comanda grep cu acelasi pattern, dar cu propriul Matcher
+     * Este folosita de threadurile care verifica nume in paralel(un Matcher nu poate fi folosit de mai multe threaduri)
+     *
+     * @return comanda noua
+     */
+    public GrepCommand copy()
+    {
+        return new GrepCommand(fileSystem, regexPattern);
     }
 
     /**
@@ -654,8 +733,14 @@ class GrepCommand implements Command
      */
     public void execute()
     {
+        if(regexMatcher == null)
+        {
+            //Patternul este compilat(sau luat din cache) o singura data, la prima verificare
+            regexMatcher = regexPattern.getPattern().matcher("");
+        }
+
         //Salveaza valoarea intoarsa
-        returnValue = fileSystem.grep(strToCheck, regexPattern);
+        returnValue = fileSystem.grep(strToCheck, regexMatcher);
     }
 
     /**
@@ -675,18 +760,14 @@ class GrepCommand implements Command
  */
 class LSStarCommand implements Command
 {
-    /**
-     * Referinta catre sistemul de fisiere
-     */
-    private FileSystem fileSystem;
     /**
      * Calea(cu *) primita ca argument
      */
     private String path;
     /**
-     * Lista cailor efective obtinute din calea cu *
+     * Lista nodurilor obtinute din calea cu *
      */
-    private LinkedList<String> actualPaths;
+    private List<FileSystem> matchedNodes;
 
     /**
      * Construieste o comanda de tip ls star
@@ -695,12 +776,23 @@ class LSStarCommand implements Command
      * @param path Calea cu *
      */
     public LSStarCommand(FileSystem fileSystem, String path)
+    {
+        this(fileSystem, path, new StarPath(path));
+    }
+
+    /**
+     * Construieste o comanda de tip ls star dintr-o cale deja compilata
+     *
+     * @param fileSystem Referinta catre sistemul de fisiere
+     * @param path Calea cu *
+     * @param starPath Calea compilata
+     */
+    public LSStarCommand(FileSystem fileSystem, String path, StarPath starPath)
     {
         this.path = path;
-        this.fileSystem = fileSystem;
 
-        StarPathTokenizer starPathTokenizer = new StarPathTokenizer(path, fileSystem);
-        actualPaths = starPathTokenizer.getActualPaths();
+        StarPathTokenizer starPathTokenizer = new StarPathTokenizer(starPath, fileSystem);
+        matchedNodes = starPathTokenizer.getMatchedNodes();
     }
 
     /**
@@ -708,28 +800,21 @@ class LSStarCommand implements Command
      */
     public void execute()
     {
-        if(actualPaths.isEmpty())
+        if(matchedNodes.isEmpty())
         {
             //nu s-a gasit niciun path care sa faca match
-            Main.errorFileWriter.println("ls: " + path + ": No such directory");
+            Session.error().println("ls: " + path + ": No such directory");
             return;
         }
         else
         {
-            //trebuie sa apelam comanda ls pe fiecare path obtinut, ne trebuie instanta lui CommandFactory
-            CommandFactory commandFactory = CommandFactory.getInstance();
-
-            for (String actualPath : actualPaths)
+            for (FileSystem node : matchedNodes)
             {
-                String commandText = "ls " + actualPath; // comanda este ls + cale
-                //createCommand primeste ca argument un scanner, nu sirul ce reprezinta comanda
-                //false pentru ca nu vrem sa afisam mesaje de eroare in ls
-                Command commandToExecute = commandFactory.createCommand(fileSystem, new Scanner(commandText), false);
-
-                //executa comanda
-                CommandInvoker commandInvoker = new CommandInvoker();
-                commandInvoker.setCommand(commandToExecute);
-                commandInvoker.invokeCommand();
+                //ls se face doar pe directoare, fisierele sunt ignorate fara mesaj de eroare
+                if(node instanceof FileSystemDirectory)
+                {
+                    node.ls(null);
+                }
             }
         }
     }
@@ -740,18 +825,14 @@ class LSStarCommand implements Command
  */
 class RMStarCommand implements Command
 {
-    /**
-     * Referinta catre sistemul de fisiere
-     */
-    private FileSystem fileSystem;
     /**
      * Calea(cu *) primita ca argument
      */
     private String path;
     /**
-     * Lista cailor efective obtinute din calea cu *
+     * Lista nodurilor obtinute din calea cu *
      */
-    private LinkedList<String> actualPaths;
+    private List<FileSystem> matchedNodes;
 
     /**
      * Construieste o comanda de tip rm star
@@ -760,12 +841,23 @@ class RMStarCommand implements Command
      * @param path Calea cu *
      */
     public RMStarCommand(FileSystem fileSystem, String path)
+    {
+        this(fileSystem, path, new StarPath(path));
+    }
+
+    /**
+     * Construieste o comanda de tip rm star dintr-o cale deja compilata
+     *
+     * @param fileSystem Referinta catre sistemul de fisiere
+     * @param path Calea cu *
+     * @param starPath Calea compilata
+     */
+    public RMStarCommand(FileSystem fileSystem, String path, StarPath starPath)
     {
         this.path = path;
-        this.fileSystem = fileSystem;
 
-        StarPathTokenizer starPathTokenizer = new StarPathTokenizer(path, fileSystem);
-        actualPaths = starPathTokenizer.getActualPaths();
+        StarPathTokenizer starPathTokenizer = new StarPathTokenizer(starPath, fileSystem);
+        matchedNodes = starPathTokenizer.getMatchedNodes();
     }
 
     /**
@@ -773,24 +865,16 @@ class RMStarCommand implements Command
      */
     public void execute()
     {
-        CommandFactory commandFactory = CommandFactory.getInstance();
-
-        if(actualPaths.isEmpty())
+        if(matchedNodes.isEmpty())
         {
-            Main.errorFileWriter.println("rm: cannot remove " + path + ": No such file or directory");
+            Session.error().println("rm: cannot remove " + path + ": No such file or directory");
             return;
         }
         else
         {
-            for (String actualPath : actualPaths)
+            for (FileSystem node : matchedNodes)
             {
-                String commandText = "rm " + actualPath; // comanda este rm + cale
-                Command commandToExecute = commandFactory.createCommand(fileSystem, new Scanner(commandText), false);
-
-                //executa comanda folosind un CommandInvoker
-                CommandInvoker commandInvoker = new CommandInvoker();
-                commandInvoker.setCommand(commandToExecute);
-                commandInvoker.invokeCommand();
+                node.rm();
             }
         }
     }
@@ -802,13 +886,9 @@ class RMStarCommand implements Command
 class TouchStarCommand implements Command
 {
     /**
-     * Referinta catre sistemul de fisiere
-     */
-    private FileSystem fileSystem;
-    /**
-     * Lista cailor efective obtinute din calea cu *
+     * Lista directoarelor obtinute din calea cu *
      */
-    private LinkedList<String> actualPaths;
+    private List<FileSystem> matchedNodes;
     /**
      * Numele fisierului ce trebuie creat
      */
@@ -825,33 +905,42 @@ class TouchStarCommand implements Command
      * @param filePath   Calea cu *
      */
     public TouchStarCommand(FileSystem fileSystem, String filePath)
+    {
+        //calea fara numele fisierului este compilata separat
+        this(fileSystem, filePath, new StarPath(filePath.substring(0, filePath.lastIndexOf("/"))));
+    }
+
+    /**
+     * Construieste o comanda touch star dintr-o cale deja compilata
+     *
+     * @param fileSystem    Referinta catre sistemul de fisiere
+     * @param filePath      Calea cu *
+     * @param directoryPath Calea compilata a directoarelor(calea fara numele fisierului)
+     */
+    public TouchStarCommand(FileSystem fileSystem, String filePath, StarPath directoryPath)
     {
         this.filePath = filePath;
-        this.fileSystem = fileSystem;
 
         //extrage numele fisierului din cale
         this.fileName = filePath.substring(filePath.lastIndexOf("/") + 1);
-        filePath = filePath.substring(0, filePath.lastIndexOf("/")); //construieste calea fara numele fisierului
 
-        StarPathTokenizer starPathTokenizer = new StarPathTokenizer(filePath, fileSystem);
-        actualPaths = starPathTokenizer.getActualPaths();
+        StarPathTokenizer starPathTokenizer = new StarPathTokenizer(directoryPath, fileSystem);
+        matchedNodes = starPathTokenizer.getMatchedNodes();
     }
 
     public void execute()
     {
-        CommandFactory commandFactory = CommandFactory.getInstance();
-
-        if(actualPaths.isEmpty())
+        if(matchedNodes.isEmpty())
         {
-            Main.errorFileWriter.println("touch: " + filePath + ": No such directory");
+            Session.error().println("touch: " + filePath + ": No such directory");
             return;
         }
         else
         {
-            for (String actualPath : actualPaths)
+            for (FileSystem node : matchedNodes)
             {
-                String commandText = "touch " + actualPath + "/" + fileName; //comanda este touch cale/nume_fisier
-                Command commandToExecute = commandFactory.createCommand(fileSystem, new Scanner(commandText), false);
+                //numele fisierului este rezolvat relativ la fiecare nod gasit
+                Command commandToExecute = new TouchCommand(new PathResolver(node, fileName), fileName, false);
 
                 //Executa comanda
                 CommandInvoker commandInvoker = new CommandInvoker();
@@ -868,13 +957,9 @@ class TouchStarCommand implements Command
 class MKDirStarCommand implements Command
 {
     /**
-     * Referinta catre sistemul de fisiere
+     * Lista directoarelor obtinute din calea cu *
      */
-    private FileSystem fileSystem;
-    /**
-     * Lista cailor efective obtinute din calea cu *
-     */
-    private LinkedList<String> actualPaths;
+    private List<FileSystem> matchedNodes;
     /**
      * Numele folderului ce trebuie creat
      */
@@ -892,30 +977,39 @@ class MKDirStarCommand implements Command
      */
     public MKDirStarCommand(FileSystem fileSystem, String folderPath)
     {
-        this.fileSystem = fileSystem;
+        //calea fara numele folderului este compilata separat
+        this(fileSystem, folderPath, new StarPath(folderPath.substring(0, folderPath.lastIndexOf("/"))));
+    }
+
+    /**
+     * Construieste o comanda mkdir star dintr-o cale deja compilata
+     *
+     * @param fileSystem    Referinta catre sistemul de fisiere
+     * @param folderPath    Calea cu *
+     * @param directoryPath Calea compilata a directoarelor(calea fara numele folderului)
+     */
+    public MKDirStarCommand(FileSystem fileSystem, String folderPath, StarPath directoryPath)
+    {
         this.folderPath = folderPath;
 
         directoryName = folderPath.substring(folderPath.lastIndexOf("/") + 1); //extrage numele folderului
-        folderPath = folderPath.substring(0, folderPath.lastIndexOf("/")); // construieste calea fara numele folderului
 
-        StarPathTokenizer starPathTokenizer = new StarPathTokenizer(folderPath, fileSystem);
-        actualPaths = starPathTokenizer.getActualPaths();
+        StarPathTokenizer starPathTokenizer = new StarPathTokenizer(directoryPath, fileSystem);
+        matchedNodes = starPathTokenizer.getMatchedNodes();
     }
 
     public void execute()
     {
-        CommandFactory commandFactory = CommandFactory.getInstance();
-
-        if(actualPaths.isEmpty())
+        if(matchedNodes.isEmpty())
         {
-            Main.errorFileWriter.println("mkdir: " + folderPath + ": No such directory");
+            Session.error().println("mkdir: " + folderPath + ": No such directory");
             return;
         }
 
-        for(String actualPath : actualPaths)
+        for(FileSystem node : matchedNodes)
         {
-            String commandText = "mkdir " + actualPath + "/" + directoryName; // comanda este mkdir cale/nume_folder
-            Command commandToExecute = commandFactory.createCommand(fileSystem, new Scanner(commandText), false);
+            //numele folderului este rezolvat relativ la fiecare nod gasit
+            Command commandToExecute = new MKDirCommand(new PathResolver(node, directoryName), directoryName, false);
 
             //executa comanda
             CommandInvoker commandInvoker = new CommandInvoker();
@@ -924,3 +1018,171 @@ class MKDirStarCommand implements Command
         }
     }
 }
+
+/**
+ * Salveaza sistemul de fisiere(incepand cu root) intr-un snapshot binar
+ */
+class SaveCommand implements Command
+{
+    /**
+     * Referinta catre sistemul de fisiere(nodul dummy)
+     */
+    private FileSystem fileSystem;
+    /**
+     * Fisierul in care se scrie snapshotul
+     */
+    private String fileName;
+
+    /**
+     * Construieste o comanda save
+     *
+     * @param fileSystem Referinta catre sistemul de fisiere
+     * @param fileName   Fisierul in care se scrie snapshotul
+     */
+    public SaveCommand(FileSystem fileSystem, String fileName)
+    {
+        this.fileSystem = fileSystem;
+        this.fileName = fileName;
+    }
+
+    /**
+     * Executa comanda save
+     */
+    public void execute()
+    {
+        try
+        {
+            TreeSnapshot.save((FileSystemDirectory)fileSystem.getChild("/"), fileName);
+        }
+        catch(IOException ex)
+        {
+            Session.error().println("save: " + fileName + ": " + ex.getMessage());
+        }
+    }
+}
+
+/**
+ * Inlocuieste sistemul de fisiere cu cel dintr-un snapshot binar
+ */
+class LoadCommand implements Command
+{
+    /**
+     * Referinta catre sistemul de fisiere(nodul dummy)
+     */
+    private FileSystem fileSystem;
+    /**
+     * Fisierul din care se citeste snapshotul
+     */
+    private String fileName;
+
+    /**
+     * Construieste o comanda load
+     *
+     * @param fileSystem Referinta catre sistemul de fisiere
+     * @param fileName   Fisierul din care se citeste snapshotul
+     */
+    public LoadCommand(FileSystem fileSystem, String fileName)
+    {
+        this.fileSystem = fileSystem;
+        this.fileName = fileName;
+    }
+
+    /**
+     * Executa comanda load; root-ul incarcat devine directorul curent
+     */
+    public void execute()
+    {
+        try
+        {
+            Main.setRoot((FileSystemDirectory)fileSystem, TreeSnapshot.load(fileName));
+
+            //jurnalul nu poate reface un root incarcat, deci incepe de la un checkpoint al lui
+            if(Main.journal != null)
+            {
+                Main.journal.checkpoint();
+            }
+        }
+        catch(IOException ex)
+        {
+            Session.error().println("load: " + fileName + ": " + ex.getMessage());
+        }
+    }
+}
+
+/**
+ * Importa un fisier sau folder de pe disc(impreuna cu subarborele lui) intr-un folder din sistemul de fisiere
+ */
+class ImportCommand implements Command
+{
+    /**
+     * Calea de pe disc
+     */
+    private String hostPath;
+    /**
+     * Calea folderului destinatie
+     */
+    private String destFolder;
+    /**
+     * Folderul destinatie
+     */
+    private FileSystem destDirectory = null;
+
+    /**
+     * Construieste o comanda import
+     *
+     * @param fileSystem Referinta catre sistemul de fisiere
+     * @param hostPath   Calea de pe disc
+     * @param destFolder Calea folderului destinatie
+     */
+    public ImportCommand(FileSystem fileSystem, String hostPath, String destFolder)
+    {
+        this.hostPath   = hostPath;
+        this.destFolder = destFolder;
+
+        PathResolver destPathResolver = new PathResolver(destFolder, fileSystem);
+        destDirectory = destPathResolver.getReference(NodeType.DirectoryNode);
+    }
+
+    /**
+     * Executa comanda import
+     * Subarborele este construit complet inainte sa fie legat, deci o eroare de citire nu lasa un import partial
+     */
+    public void execute()
+    {
+        if(destDirectory == null)
+        {
+            Session.error().println("import: cannot import into " + destFolder + ": No such directory");
+            return;
+        }
+
+        FileSystem importedNode;
+        try
+        {
+            importedNode = HostImporter.importTree(Paths.get(hostPath));
+        }
+        catch(NoSuchFileException ex)
+        {
+            Session.error().println("import: cannot import " + hostPath + ": No such file or directory");
+            return;
+        }
+        catch(IOException | InvalidPathException ex)
+        {
+            Session.error().println("import: cannot import " + hostPath + ": " + ex.getMessage());
+            return;
+        }
+
+        if(destDirectory.find(importedNode.getName()))
+        {
+            Session.error().println("import: cannot import " + hostPath + ": Node exists at destination");
+            return;
+        }
+
+        destDirectory.add(importedNode);
+
+        //jurnalul nu poate reface continutul citit de pe disc, deci incepe de la un checkpoint
+        if(Main.journal != null)
+        {
+            Main.journal.checkpoint();
+        }
+    }
+}
@@ -1,4 +1,96 @@
-import java.util.Scanner;
+import java.util.Arrays;
+
+/**
+ * Tipurile de comenzi cunoscute
+ */
+enum CommandType
+{
+    LS("ls"),
+    PWD("pwd"),
+    CD("cd"),
+    CP("cp"),
+    MV("mv"),
+    RM("rm"),
+    Touch("touch"),
+    MKDir("mkdir"),
+    Save("save"),
+    Load("load"),
+    Import("import");
+
+    /**
+     * Tabela precalculata: pentru fiecare prim caracter(ASCII), tipurile al caror nume incepe cu el
+     */
+    private static final CommandType[][] typesByFirstChar = new CommandType[128][];
+
+    static
+    {
+        for(CommandType type : values())
+        {
+            int firstChar = type.commandName.charAt(0);
+            CommandType[] types = typesByFirstChar[firstChar];
+
+            if(types == null)
+            {
+                types = new CommandType[0];
+            }
+
+            types = Arrays.copyOf(types, types.length + 1);
+            types[types.length - 1] = type;
+            typesByFirstChar[firstChar] = types;
+        }
+    }
+
+    /**
+     * Numele comenzii, asa cum apare in script
+     */
+    private final String commandName;
+
+    CommandType(String commandName)
+    {
+        this.commandName = commandName;
+    }
+
+    /**
+     * Cauta tipul comenzii al carei nume se afla intr-o bucata dintr-un buffer de caractere
+     *
+     * @param chars bufferul de caractere
+     * @param start pozitia primului caracter al numelui
+     * @param end   pozitia de dupa ultimul caracter al numelui
+     * @return tipul comenzii, daca numele este cunoscut
+     *         null, altfel
+     */
+    static CommandType lookup(char[] chars, int start, int end)
+    {
+        char firstChar = chars[start];
+        if(firstChar >= typesByFirstChar.length || typesByFirstChar[firstChar] == null)
+        {
+            return null;
+        }
+
+        for(CommandType type : typesByFirstChar[firstChar])
+        {
+            String name = type.commandName;
+
+            if(name.length() != end - start)
+            {
+                continue;
+            }
+
+            int i = 1;
+            while(i < name.length() && chars[start + i] == name.charAt(i))
+            {
+                i++;
+            }
+
+            if(i == name.length())
+            {
+                return type;
+            }
+        }
+
+        return null;
+    }
+}
 
 /**
  * Command factory-ul folosit pentru crearea comenzilor
@@ -20,7 +112,7 @@ public class CommandFactory
      * Creeaza(daca este cazul) si intoarce unica instanta a lui CommandFactory
      * @return uniqueInstance
      */
-    public static CommandFactory getInstance()
+    public static synchronized CommandFactory getInstance()
     {
         if (uniqueInstance == null)
         {
@@ -31,124 +123,232 @@ public class CommandFactory
     }
 
     /**
-     * Construieste o comanda care va primit argumente fara *
+     * Cache-ul formelor parsate ale liniilor din script(cate unul pentru fiecare thread, astfel sesiunile
+     * care ruleaza in paralel nu impart starea parserului)
+     */
+    private ThreadLocal<ParsedCommandCache> parsedCommands = ThreadLocal.withInitial(ParsedCommandCache::new);
+    /**
+     * Lexerul folosit pentru liniile care nu se afla in cache(cate unul pentru fiecare thread)
+     */
+    private ThreadLocal<CommandLexer> lexer = ThreadLocal.withInitial(CommandLexer::new);
+
+    /**
+     * Construieste comanda corespunzatoare unei linii din script
+     * Linia este analizata doar daca forma ei parsata nu se afla deja in cache
      *
-     * @param fileSystem    Referinta catre sistemul de fisiere(root)
-     * @param stringScanner Scannerul folosit pentru a parsa argumentele
-     * @param shouldPrint   true - comenzile construite trebuie sa afiseze mesaje, 0 altfel
-     * @return              comanda construita
+     * @param fileSystem Referinta catre sistemul de fisiere(root)
+     * @param chars      Bufferul liniei
+     * @param length     Lungimea liniei
+     * @return           comanda construita(null daca linia nu contine o comanda cunoscuta)
      */
-    public Command createCommand(FileSystem fileSystem, Scanner stringScanner, boolean shouldPrint)
+    public Command createCommand(FileSystem fileSystem, char[] chars, int length)
     {
-        Command command = null;
-        String type = stringScanner.next();
+        ParsedCommandCache cache = parsedCommands.get();
+        ParsedCommand parsedCommand = cache.get(chars, length);
 
-        if (type.equals("ls"))
+        if(parsedCommand == null)
         {
-            boolean isRecursive = false;
-            String path = "";
-            Command grepCommand = null;
-
-            if(stringScanner.hasNextLine())
-            {
-                //Verificam daca ls este recursiv sau daca este folosit printr-un pipe cu grep
-                String line = stringScanner.nextLine();
-                String[] splitLine = line.split("\\|", 2);
-
-
-                stringScanner = new Scanner(splitLine[0]); //parseaza doar comanda ls, fara grep
-
-                for (int i = 0; i < 2; i++)
-                {
-                    if (stringScanner.hasNext())
-                    {
-                        String arg = stringScanner.next();
-                        if (arg.equals("-R"))
-                        {
-                            isRecursive = true;
-                        }
-                        else
-                        {
-                            path = arg;
-                        }
-                    }
-                }
+            CommandLexer lineLexer = lexer.get();
+            lineLexer.lex(chars, 0, length);
+            parsedCommand = parse(lineLexer);
+            cache.put(chars, length, parsedCommand);
+        }
 
-                if (splitLine.length == 2)
-                {
-                    //Daca split a returnat 2 stringuri, inseamna ca avem si grep impreuna cu ls
-                    stringScanner = new Scanner(splitLine[1]);
-                    stringScanner.next(); // "grep"
+        return createCommand(fileSystem, parsedCommand);
+    }
 
-                    //Construieste o comanda grep, argumentul este patternul
-                    grepCommand = new GrepCommand(fileSystem, stringScanner.next());
-                }
-            }
+    /**
+     * Construieste forma parsata a unei linii analizate de un CommandLexer
+     * Liniile care contin * in cale(nu intr-un pattern grep) devin comenzi de tip star
+     *
+     * @param lexer Lexerul care a analizat linia
+     * @return      forma parsata
+     */
+    public ParsedCommand parse(CommandLexer lexer)
+    {
+        CommandType type = lexer.getCommandType();
 
-            //ls o sa primeasca comanda grep drept argument ca sa poata verifica daca nodurile respecta patternul
-            command = new LSCommand(fileSystem, path, isRecursive, grepCommand, shouldPrint);
-        }
-        else if (type.equals("pwd"))
+        if(type == null)
         {
-            command = new PWDCommand(fileSystem);
+            return new ParsedCommand(null, false, false, null, null, null, null);
         }
-        else if (type.equals("cd"))
+
+        if(type == CommandType.Save || type == CommandType.Load)
         {
-            command = new CDCommand(fileSystem, stringScanner.next());
+            //argumentul este un fisier de pe disc, nu o cale din sistemul de fisiere, deci nu este expandat
+            return new ParsedCommand(type, false, false, lexer.getToken(1), null, null, null);
         }
-        else if (type.equals("cp"))
+
+        if(type == CommandType.Import)
         {
-            command = new CPCommand(fileSystem, stringScanner.next(), stringScanner.next());
+            //primul argument este o cale de pe disc, iar destinatia este un folder, fara expandare
+            return new ParsedCommand(type, false, false, lexer.getToken(1), lexer.getToken(2), null, null);
         }
-        else if (type.equals("mv"))
+
+        if(lexer.isStarCommand())
         {
-            command = new MVCommand(fileSystem, stringScanner.next(), stringScanner.next());
+            return parseStarCommand(lexer, type);
         }
-        else if (type.equals("rm"))
+
+        switch(type)
         {
-            command = new RMCommand(fileSystem, stringScanner.next(), shouldPrint);
+            case LS:
+                return parseLSCommand(lexer);
+            case PWD:
+                return new ParsedCommand(type, false, false, null, null, null, null);
+            case CP:
+            case MV:
+                return new ParsedCommand(type, false, false, lexer.getToken(1), lexer.getToken(2), null, null);
+            default:
+                //cd, rm, touch, mkdir primesc o singura cale
+                return new ParsedCommand(type, false, false, lexer.getToken(1), null, null, null);
         }
-        else if (type.equals("touch"))
+    }
+
+    /**
+     * Construieste forma parsata a unei comenzi ls, eventual impreuna cu o comanda grep(ls ... | grep pattern)
+     *
+     * @param lexer Lexerul care a analizat linia
+     * @return      forma parsata
+     */
+    private ParsedCommand parseLSCommand(CommandLexer lexer)
+    {
+        boolean isRecursive = false;
+        String path = "";
+        LazyPattern grepPattern = null;
+
+        //Verificam daca ls este recursiv, doar primele 2 argumente dinainte de | sunt luate in considerare
+        int argumentsEnd = Math.min(lexer.getSegmentCountBeforePipe(), 3);
+        for (int i = 1; i < argumentsEnd; i++)
         {
-            command = new TouchCommand(fileSystem, stringScanner.next(), shouldPrint);
+            if (lexer.segmentEquals(i, "-R"))
+            {
+                isRecursive = true;
+            }
+            else
+            {
+                path = lexer.getSegment(i);
+            }
         }
-        else if (type.equals("mkdir"))
+
+        if (lexer.hasPipe())
         {
-            command = new MKDirCommand(fileSystem, stringScanner.next(), shouldPrint);
+            //Patternul grep este al doilea token de dupa |(primul este "grep"), fara ""
+            String regexPattern = lexer.getSegment(lexer.getPipeSegment() + 1).replace("\"", "");
+            grepPattern = new LazyPattern(regexPattern);
         }
 
-        return command;
+        return new ParsedCommand(CommandType.LS, false, isRecursive, path, null, grepPattern, null);
     }
 
     /**
-     * Construieste o comanda care va primit argumente cu *
+     * Construieste forma parsata a unei comenzi care primeste o cale cu *
      *
-     * @param fileSystem    Referinta catre sistemul de fisiere(root)
-     * @param stringScanner Scannerul folosit pentru a parsa argumentele
-     * @return              comanda construita
+     * @param lexer Lexerul care a analizat linia
+     * @param type  Tipul comenzii
+     * @return      forma parsata
      */
-    public Command createStarCommand(FileSystem fileSystem, Scanner stringScanner)
+    private ParsedCommand parseStarCommand(CommandLexer lexer, CommandType type)
     {
-        Command command = null;
-        String type = stringScanner.next();
-
-        if (type.equals("ls"))
+        switch(type)
         {
-            command = new LSStarCommand(fileSystem, stringScanner.next());
+            case LS:
+            case RM:
+            {
+                String path = lexer.getToken(1);
+                return new ParsedCommand(type, true, false, path, null, null, new StarPath(path));
+            }
+            case Touch:
+            case MKDir:
+            {
+                //se expandeaza doar calea directoarelor, fara numele nodului ce trebuie creat
+                String path = lexer.getToken(1);
+                StarPath directoryPath = new StarPath(path.substring(0, path.lastIndexOf("/")));
+                return new ParsedCommand(type, true, false, path, null, null, directoryPath);
+            }
+            default:
+                //celelalte comenzi nu accepta cai cu *
+                return new ParsedCommand(null, true, false, null, null, null, null);
         }
-        else if (type.equals("rm"))
+    }
+
+    /**
+     * Construieste comanda corespunzatoare unei forme parsate
+     * Caile sunt rezolvate acum, in functie de starea curenta a sistemului de fisiere
+     *
+     * @param fileSystem    Referinta catre sistemul de fisiere(root)
+     * @param parsedCommand Forma parsata a liniei
+     * @return              comanda construita(null daca linia nu contine o comanda cunoscuta)
+     */
+    public Command createCommand(FileSystem fileSystem, ParsedCommand parsedCommand)
+    {
+        CommandType type = parsedCommand.getCommandType();
+
+        if(type == null)
         {
-            command = new RMStarCommand(fileSystem, stringScanner.next());
+            return null;
         }
-        else if (type.equals("touch"))
+
+        String firstArgument = parsedCommand.getFirstArgument();
+
+        if(parsedCommand.isStar())
         {
-            command = new TouchStarCommand(fileSystem, stringScanner.next());
+            switch(type)
+            {
+                case LS:
+                    return new LSStarCommand(fileSystem, firstArgument, parsedCommand.getStarPath());
+                case RM:
+                    return new RMStarCommand(fileSystem, firstArgument, parsedCommand.getStarPath());
+                case Touch:
+                    return new TouchStarCommand(fileSystem, firstArgument, parsedCommand.getStarPath());
+                default:
+                    return new MKDirStarCommand(fileSystem, firstArgument, parsedCommand.getStarPath());
+            }
         }
-        else if (type.equals("mkdir"))
+
+        switch(type)
         {
-            command = new MKDirStarCommand(fileSystem, stringScanner.next());
+            case LS:
+            {
+                Command grepCommand = null;
+                if(parsedCommand.getGrepPattern() != null)
+                {
+                    grepCommand = new GrepCommand(fileSystem, parsedCommand.getGrepPattern());
+                }
+
+                //ls o sa primeasca comanda grep drept argument ca sa poata verifica daca nodurile respecta patternul
+                return new LSCommand(fileSystem, firstArgument, parsedCommand.isRecursive(), grepCommand, true);
+            }
+            case PWD:
+                return new PWDCommand(fileSystem);
+            case CD:
+                return new CDCommand(fileSystem, firstArgument);
+            case CP:
+                return new CPCommand(fileSystem, firstArgument, parsedCommand.getSecondArgument());
+            case MV:
+                return new MVCommand(fileSystem, firstArgument, parsedCommand.getSecondArgument());
+            case RM:
+                return new RMCommand(fileSystem, firstArgument, true);
+            case Touch:
+                return new TouchCommand(fileSystem, firstArgument, true);
+            case Save:
+                return new SaveCommand(fileSystem, firstArgument);
+            case Load:
+                return new LoadCommand(fileSystem, firstArgument);
+            case Import:
+                return new ImportCommand(fileSystem, firstArgument, parsedCommand.getSecondArgument());
+            default:
+                return new MKDirCommand(fileSystem, firstArgument, true);
         }
+    }
 
-        return command;
+    /**
+     * Intoarce cache-ul formelor parsate al threadului curent(pentru statistici)
+     *
+     * @return cache-ul
+     */
+    public ParsedCommandCache getParsedCommandCache()
+    {
+        return parsedCommands.get();
     }
 }
@@ -0,0 +1,315 @@
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/**
+ * Analizeaza o linie din script intr-o singura trecere peste caractere
+ * Determina tipul comenzii, daca linia contine * sau grep si pozitiile tokenurilor(separate prin spatii albe)
+ * Tokenurile sunt retinute ca pozitii in bufferul liniei, iar stringurile sunt construite doar pentru
+ * argumentele de care comanda are nevoie. Tablourile de pozitii sunt refolosite de la o linie la alta
+ */
+public class CommandLexer
+{
+    /**
+     * Caracterele liniei
+     */
+    private char[] chars;
+
+    /**
+     * Pozitiile de inceput ale tokenurilor separate prin spatii albe
+     */
+    private int[] tokenStarts = new int[8];
+    /**
+     * Pozitiile de dupa sfarsitul tokenurilor separate prin spatii albe
+     */
+    private int[] tokenEnds = new int[8];
+    /**
+     * Numarul de tokenuri separate prin spatii albe
+     */
+    private int tokenCount;
+
+    /**
+     * Pozitiile de inceput ale tokenurilor separate prin spatii albe si prin primul |(folosite de ls | grep)
+     */
+    private int[] segmentStarts = new int[8];
+    /**
+     * Pozitiile de dupa sfarsitul tokenurilor separate prin spatii albe si prin primul |
+     */
+    private int[] segmentEnds = new int[8];
+    /**
+     * Numarul de tokenuri separate prin spatii albe si prin primul |
+     */
+    private int segmentCount;
+    /**
+     * Indexul primului token de dupa primul |(-1 daca linia nu contine |)
+     */
+    private int pipeSegment;
+
+    /**
+     * true daca linia contine *
+     */
+    private boolean hasStar;
+    /**
+     * true daca linia contine grep
+     */
+    private boolean hasGrep;
+    /**
+     * Tipul comenzii(null daca primul token nu este o comanda cunoscuta)
+     */
+    private CommandType commandType;
+
+    /**
+     * Analizeaza o bucata dintr-un buffer de caractere
+     * Rezultatul este valid pana la urmatorul apel(bufferul nu este copiat)
+     *
+     * @param chars bufferul de caractere
+     * @param start pozitia primului caracter
+     * @param end   pozitia de dupa ultimul caracter
+     */
+    public void lex(char[] chars, int start, int end)
+    {
+        this.chars = chars;
+        tokenCount = 0;
+        segmentCount = 0;
+        pipeSegment = -1;
+        hasStar = false;
+        hasGrep = false;
+
+        int tokenStart = -1;    //inceputul tokenului curent(separat prin spatii albe), -1 intre tokenuri
+        int segmentStart = -1;  //inceputul tokenului curent(separat si prin primul |), -1 intre tokenuri
+        int grepMatched = 0;    //cate caractere din "grep" se potrivesc pana la pozitia curenta
+
+        for(int i = start; i < end; i++)
+        {
+            char c = chars[i];
+
+            //cautam "grep" in aceeasi trecere(niciun prefix propriu al lui "grep" nu este si sufix)
+            if(!hasGrep)
+            {
+                if(c == "grep".charAt(grepMatched))
+                {
+                    grepMatched++;
+                    hasGrep = (grepMatched == 4);
+                }
+                else
+                {
+                    grepMatched = (c == 'g') ? 1 : 0;
+                }
+            }
+
+            if(Character.isWhitespace(c))
+            {
+                if(tokenStart >= 0)
+                {
+                    addToken(tokenStart, i);
+                    tokenStart = -1;
+                }
+
+                if(segmentStart >= 0)
+                {
+                    addSegment(segmentStart, i);
+                    segmentStart = -1;
+                }
+
+                continue;
+            }
+
+            if(c == '*')
+            {
+                hasStar = true;
+            }
+
+            if(tokenStart < 0)
+            {
+                tokenStart = i;
+            }
+
+            if(c == '|' && pipeSegment < 0)
+            {
+                //primul | separa comanda ls de comanda grep
+                if(segmentStart >= 0)
+                {
+                    addSegment(segmentStart, i);
+                    segmentStart = -1;
+                }
+
+                pipeSegment = segmentCount;
+                continue;
+            }
+
+            if(segmentStart < 0)
+            {
+                segmentStart = i;
+            }
+        }
+
+        if(tokenStart >= 0)
+        {
+            addToken(tokenStart, end);
+        }
+
+        if(segmentStart >= 0)
+        {
+            addSegment(segmentStart, end);
+        }
+
+        commandType = (tokenCount > 0) ? CommandType.lookup(chars, tokenStarts[0], tokenEnds[0]) : null;
+    }
+
+    /**
+     * Adauga un token separat prin spatii albe
+     *
+     * @param start pozitia de inceput
+     * @param end   pozitia de dupa sfarsit
+     */
+    private void addToken(int start, int end)
+    {
+        if(tokenCount == tokenStarts.length)
+        {
+            tokenStarts = Arrays.copyOf(tokenStarts, tokenCount * 2);
+            tokenEnds   = Arrays.copyOf(tokenEnds, tokenCount * 2);
+        }
+
+        tokenStarts[tokenCount] = start;
+        tokenEnds[tokenCount] = end;
+        tokenCount++;
+    }
+
+    /**
+     * Adauga un token separat prin spatii albe si prin primul |
+     *
+     * @param start pozitia de inceput
+     * @param end   pozitia de dupa sfarsit
+     */
+    private void addSegment(int start, int end)
+    {
+        if(segmentCount == segmentStarts.length)
+        {
+            segmentStarts = Arrays.copyOf(segmentStarts, segmentCount * 2);
+            segmentEnds   = Arrays.copyOf(segmentEnds, segmentCount * 2);
+        }
+
+        segmentStarts[segmentCount] = start;
+        segmentEnds[segmentCount] = end;
+        segmentCount++;
+    }
+
+    /**
+     * Intoarce tipul comenzii
+     *
+     * @return tipul comenzii, daca primul token este o comanda cunoscuta
+     *         null, altfel
+     * @throws NoSuchElementException daca linia nu contine niciun token(la fel ca Scanner)
+     */
+    public CommandType getCommandType()
+    {
+        if(tokenCount == 0)
+        {
+            throw new NoSuchElementException();
+        }
+
+        return commandType;
+    }
+
+    /**
+     * Verifica daca linia trebuie tratata ca o comanda cu * in cale
+     * * dintr-un pattern grep nu face comanda sa fie de tip star
+     *
+     * @return true, daca linia contine * si nu contine grep
+     *         false, altfel
+     */
+    public boolean isStarCommand()
+    {
+        return hasStar && !hasGrep;
+    }
+
+    /**
+     * Construieste un token(separat prin spatii albe)
+     *
+     * @param index indexul tokenului(0 este numele comenzii)
+     * @return tokenul ca string
+     * @throws NoSuchElementException daca linia nu are atatea tokenuri(la fel ca Scanner)
+     */
+    public String getToken(int index)
+    {
+        if(index >= tokenCount)
+        {
+            throw new NoSuchElementException();
+        }
+
+        return new String(chars, tokenStarts[index], tokenEnds[index] - tokenStarts[index]);
+    }
+
+    /**
+     * Intoarce numarul de tokenuri separate prin spatii albe si prin primul |, aflate inainte de |
+     *
+     * @return numarul de tokenuri, inclusiv numele comenzii
+     */
+    public int getSegmentCountBeforePipe()
+    {
+        return (pipeSegment < 0) ? segmentCount : pipeSegment;
+    }
+
+    /**
+     * Verifica daca linia contine |
+     *
+     * @return true, daca linia contine |
+     *         false, altfel
+     */
+    public boolean hasPipe()
+    {
+        return pipeSegment >= 0;
+    }
+
+    /**
+     * Construieste un token separat prin spatii albe si prin primul |
+     *
+     * @param index indexul tokenului
+     * @return tokenul ca string
+     * @throws NoSuchElementException daca linia nu are atatea tokenuri(la fel ca Scanner)
+     */
+    public String getSegment(int index)
+    {
+        if(index >= segmentCount)
+        {
+            throw new NoSuchElementException();
+        }
+
+        return new String(chars, segmentStarts[index], segmentEnds[index] - segmentStarts[index]);
+    }
+
+    /**
+     * Verifica daca un token separat prin spatii albe si prin primul | este egal cu un sir dat, fara sa il construiasca
+     *
+     * @param index indexul tokenului
+     * @param str   sirul cu care se compara
+     * @return true, daca tokenul exista si este egal cu str
+     *         false, altfel
+     */
+    public boolean segmentEquals(int index, String str)
+    {
+        if(index >= segmentCount || segmentEnds[index] - segmentStarts[index] != str.length())
+        {
+            return false;
+        }
+
+        for(int i = 0; i < str.length(); i++)
+        {
+            if(chars[segmentStarts[index] + i] != str.charAt(i))
+            {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Intoarce indexul primului token de dupa primul |
+     *
+     * @return indexul tokenului(-1 daca linia nu contine |)
+     */
+    public int getPipeSegment()
+    {
+        return pipeSegment;
+    }
+}
@@ -1,6 +1,6 @@
-import java.util.LinkedList;
+import java.util.ArrayList;
 import java.util.Iterator;
-import java.util.Stack;
+import java.util.regex.Matcher;
 
 /**
  * Tipul de nod cautat(folder/fisier/ambele)
@@ -12,6 +12,82 @@ enum NodeType
     AnyNode
 }
 
+/**
+ * Calea unui nod, impreuna cu generatia in care a fost verificata si cu nodurile din care a fost construita
+ * Calea ramane corecta cat timp nodul are acelasi parinte, iar calea parintelui provine din acelasi origin
+ * Toate valorile sunt publicate printr-o singura referinta, astfel un thread nu poate vedea
+ * calea dintr-o generatie impreuna cu numarul altei generatii
+ */
+final class CachedPath
+{
+    /**
+     * Calea nodului
+     */
+    final String path;
+    /**
+     * Generatia in care calea a fost calculata sau verificata ultima data
+     */
+    final long generation;
+    /**
+     * Parintele nodului in momentul in care a fost construita calea
+     */
+    final FileSystem parent;
+    /**
+     * Originea caii parintelui din care a fost construita calea(null daca nodul nu avea parinte)
+     */
+    final CachedPath parentOrigin;
+    /**
+     * Calea construita initial; o cale doar verificata intr-o generatie noua pastreaza originea celei verificate,
+     * astfel copiii nodului o pot recunoaste
+     */
+    final CachedPath origin;
+
+    /**
+     * Construieste o cale noua
+     *
+     * @param path       calea nodului
+     * @param generation generatia in care a fost calculata
+     * @param parent     parintele nodului
+     * @param parentPath calea parintelui(null daca nodul nu are parinte)
+     */
+    CachedPath(String path, long generation, FileSystem parent, CachedPath parentPath)
+    {
+        this.path = path;
+        this.generation = generation;
+        this.parent = parent;
+        this.parentOrigin = (parentPath != null) ? parentPath.origin : null;
+        this.origin = this;
+    }
+
+    /**
+     * Construieste o copie a unei cai verificate intr-o generatie noua
+     *
+     * @param checkedPath calea verificata
+     * @param generation  generatia in care a fost verificata
+     */
+    CachedPath(CachedPath checkedPath, long generation)
+    {
+        this.path = checkedPath.path;
+        this.generation = generation;
+        this.parent = checkedPath.parent;
+        this.parentOrigin = checkedPath.parentOrigin;
+        this.origin = checkedPath.origin;
+    }
+
+    /**
+     * Verifica daca aceasta cale a fost construita sub parintele dat, din calea lui actuala
+     *
+     * @param parent     parintele actual al nodului
+     * @param parentPath calea actuala a parintelui(null daca nodul nu are parinte)
+     * @return true, daca nodul nu a fost mutat si nici calea parintelui nu s-a schimbat
+     *         false, altfel
+     */
+    boolean isBuiltFrom(FileSystem parent, CachedPath parentPath)
+    {
+        return this.parent == parent && parentOrigin == ((parentPath != null) ? parentPath.origin : null);
+    }
+}
+
 /**
  * Clasa abstracta ce defineste comportamentul pe care fisierele si folderele trebuie sa il respecte
  * Contine implementari efective ale functiilor care au acelasi comportament pentru ambele tipuri de noduri
@@ -24,9 +100,30 @@ public abstract class FileSystem implements Comparable, Cloneable
      */
     private FileSystem parent;
     /**
-     * Directorul curent
+     * Generatia curenta a cailor din sistemul de fisiere
+     * Este incrementata de fiecare data cand un nod este mutat sub alt parinte; caile salvate intr-o generatie
+     * mai veche sunt verificate la urmatorul getPath, dar reconstruite doar in subarborele mutat
+     * Mutarile sunt serializate(TreeLocks), iar volatile face noua generatie vizibila celorlalte threaduri
      */
-    private static FileSystem currentDirectory;
+    private static volatile long pathGeneration = 0;
+    /**
+     * Calea nodului, salvata la ultimul apel getPath(null daca nu a fost calculata)
+     */
+    private CachedPath cachedPath;
+    /**
+     * Numarul de biti din depthStamp ocupati de adancime; restul bitilor contin generatia + 1
+     */
+    private static final int DEPTH_BITS = 31;
+    /**
+     * Masca bitilor de adancime din depthStamp
+     */
+    private static final long DEPTH_MASK = (1L << DEPTH_BITS) - 1;
+    /**
+     * Adancimea nodului(root are adancimea 0) si generatia in care a fost calculata, intr-un singur long
+     * (0 daca nu a fost calculata): un singur camp volatile se scrie atomic, deci un thread nu poate vedea
+     * adancimea dintr-o generatie cu numarul altei generatii, iar getDepth nu aloca niciun obiect
+     */
+    private volatile long depthStamp;
 
     /**
      * Intoarce numele fisierului/folderului
@@ -51,6 +148,54 @@ public abstract class FileSystem implements Comparable, Cloneable
      */
     public abstract boolean find(String fileName);
 
+    /**
+     * Construieste o copie a nodului pentru comanda cp
+     * Copia poate sa partajeze subarborele cu nodul curent pana la prima modificare
+     *
+     * @return copia nodului
+     */
+    public abstract FileSystem lazyClone();
+
+    /**
+     * Construieste o copie completa(nu lazy) a nodului, folosita de cp in modul concurent
+     *
+     * @return copia nodului
+     */
+    public FileSystem copy()
+    {
+        try
+        {
+            return (FileSystem)clone();
+        }
+        catch(CloneNotSupportedException ex)
+        {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    /**
+     * Implementare default a lui discard
+     * Este apelata dupa ce un nod a fost sters din sistemul de fisiere
+     * Doar copiile lazy ale folderelor trebuie sa renunte la continutul partajat
+     */
+    public void discard()
+    {
+
+    }
+
+    /**
+     * Implementare default a lui getChild
+     * Un fisier nu contine alte noduri, deci implementarea default intoarce null
+     *
+     * @param name numele nodului cautat
+     * @return referinta catre nodul cu numele dat, daca exista
+     *         null, altfel
+     */
+    public FileSystem getChild(String name)
+    {
+        return null;
+    }
+
     /**
      * Seteaza parintele unui nod
      *
@@ -58,7 +203,19 @@ public abstract class FileSystem implements Comparable, Cloneable
      */
     public void setNodeParent(FileSystem parent)
     {
+        FileSystem oldParent = this.parent;
         this.parent = parent;
+
+        if(oldParent != null && oldParent != parent)
+        {
+            /*
+                nodul isi schimba parintele, caile salvate pentru el si pentru subarborele lui trebuie verificate
+                Generatia este incrementata dupa ce parintele a fost schimbat: un thread care vede noua generatie
+                (citire volatile) vede si noul parinte, deci nu poate salva, marcata cu generatia curenta,
+                o cale sau o adancime calculata din vechiul parinte
+             */
+            pathGeneration++;
+        }
     }
 
     /**
@@ -76,135 +233,229 @@ public abstract class FileSystem implements Comparable, Cloneable
      * Comanda grep are comportament identic atat pentru fisiere cat si pentru foldere
      *
      * @param strToCheck   sirul ce trebuie verificat
-     * @param regexPattern patternul ce trebuie respectat
+     * @param regexMatcher matcher-ul patternului ce trebuie respectat(este refolosit intre apeluri)
      *
      * @return true, daca sirul respecta patternul
      *         false, altfel
      */
-    public boolean grep(String strToCheck, String regexPattern)
+    public boolean grep(String strToCheck, Matcher regexMatcher)
     {
-        if(strToCheck.matches(regexPattern))
-        {
-            return true;
-        }
-
-        return false;
+        return regexMatcher.reset(strToCheck).matches();
     }
 
     /**
-     * Intoarce o referinta catre un nod, primit calea acestuia drept argument
-     *
-     * @param tokensList lista de tokenuri ce reprezinta calea catre nod
-     * @param nodeType tipul de nod cautat(NodeType enum)
+     * Intoarce calea catre nod
+     * Calea este salvata in nod si este recalculata doar daca nodul sau un stramos al lui a fost mutat
      *
-     * @return referinta catre nod, daca acesta exista
-     *         null, altfel
+     * @return calea drept string
      */
-    public FileSystem getReference(LinkedList<String> tokensList, NodeType nodeType)
+    public String getPath()
     {
-        //Construieste un iterator
-        Iterator<FileSystem> iterator = createIterator();
+        long generation = pathGeneration;
+        CachedPath path = cachedPath;
+        if(path != null && path.generation == generation)
+        {
+            return path.path;
+        }
+
+        /*
+         * Algoritmul pentru a gasi calea functioneaza astfel:
+         * se urca in ierarhia de noduri pana la primul nod verificat in generatia curenta(sau pana la root)
+         * nodurile intalnite sunt salvate intr-o lista
+         * se coboara apoi inapoi pana la nodul curent, verificand calea fiecarui nod: daca nodul are acelasi
+         * parinte si calea parintelui nu s-a schimbat, calea salvata este doar marcata cu generatia curenta;
+         * altfel(nodul se afla in subarborele mutat) este construita din prefixul parintelui(pathOf, childPrefix)
+         */
+        ArrayList<FileSystem> uncheckedNodes = new ArrayList<>();
 
-        while (iterator.hasNext())
+        FileSystem node = this;
+        while(node != null && !node.hasValidPath(generation))
         {
-            FileSystem node = iterator.next(); //ia nodul la care puncteaza iteratorul
+            uncheckedNodes.add(node);
+            node = node.getNodeParent();
+        }
 
-            //Decide ce tip de nod cautam
-            boolean check = false;
-            if(nodeType == NodeType.DirectoryNode)
-            {
-                check = node instanceof FileSystemDirectory;
-            }
-            if(nodeType == NodeType.FileNode)
+        FileSystem parent = node;
+        CachedPath parentPath = (node != null) ? node.cachedPath : null;
+
+        for(int i = uncheckedNodes.size() - 1; i >= 0; i--)
+        {
+            FileSystem uncheckedNode = uncheckedNodes.get(i);
+            CachedPath oldPath = uncheckedNode.cachedPath;
+
+            if(oldPath != null && oldPath.isBuiltFrom(parent, parentPath))
             {
-                check = node instanceof FileSystemFile;
+                path = new CachedPath(oldPath, generation);
             }
-            if(nodeType == NodeType.AnyNode)
+            else
             {
-                //Daca ne intereseaza orice nod, check este true
-                check = true;
+                String nodePath = pathOf(prefixOf(parent, parentPath), uncheckedNode.getName());
+                path = new CachedPath(nodePath, generation, parent, parentPath);
             }
 
-            //nodul are tipul corent si mai exista tokenuri
-            if(check && !tokensList.isEmpty())
-            {
-                if(node.getName().equals(tokensList.element()))
-                {
-                    //numele nodului corespunde cu tokenul curent
-                    tokensList.remove(); //stergem tokenul
+            uncheckedNode.cachedPath = path;
+            parent = uncheckedNode;
+            parentPath = path;
+        }
 
-                    if(tokensList.isEmpty())
-                    {
-                        //Daca lista a devenit goala, inseamna ca am gasit nodul
-                        return node;
-                    }
+        return path.path;
+    }
 
-                    //Apeleaza recursiv getReference pentru a verifica urmatorul token
-                    return node.getReference(tokensList, nodeType);
-                }
-            }
+    /**
+     * Construieste prefixul nodurilor unui folder a carui cale este deja verificata
+     *
+     * @param parent     folderul(null pentru un nod fara parinte)
+     * @param parentPath calea folderului
+     * @return prefixul nodurilor din folder
+     */
+    private static String prefixOf(FileSystem parent, CachedPath parentPath)
+    {
+        if(parent == null)
+        {
+            return "";
         }
 
-        //Nu am reusit sa gasim un nod la calea data ca argument
-        return null;
+        if(parent.getName().equals("/"))
+        {
+            //un folder cu numele "/" are calea "/", dar prefixul nodurilor lui porneste de la propriul prefix
+            return childPrefix(parent.getPrefix(), "/");
+        }
+
+        return parentPath.path + "/";
     }
 
     /**
-     * Intoarce calea catre nod
+     * Verifica daca nodul are o cale salvata care este inca valida
      *
-     * @return calea drept string
+     * @param generation generatia curenta a cailor
+     * @return true, daca getPath poate intoarce direct calea salvata
+     *         false, altfel
      */
-    public String getPath()
+    private boolean hasValidPath(long generation)
     {
-        /*
-         * Algoritmul pentru a gasit calea functioneaza astfel:
-         * se urca in ierarhia de noduri folosind mereu parintele nodului curent
-         * se adauga numele parintelui intr-o stiva
-         * se repeta procedura pana cand am ajuns la root(parintele lui este null)
-         */
-        Stack<String> pathStack = new Stack<>();
+        CachedPath path = cachedPath;
+        return path != null && path.generation == generation;
+    }
 
-        FileSystem parent = this;
-        StringBuilder fullPath = new StringBuilder();
+    /**
+     * Construieste calea unui nod din prefixul lui(calea parintelui urmata de /)
+     * Un nod cu numele "/"(root sau o copie a lui) are calea "/"
+     *
+     * @param prefix prefixul nodului
+     * @param name   numele nodului
+     * @return calea nodului
+     */
+    static String pathOf(String prefix, String name)
+    {
+        return name.equals("/") ? "/" : prefix + name;
+    }
+
+    /**
+     * Construieste prefixul nodurilor unui folder
+     * Un folder cu numele "/" adauga inca un / la propriul prefix, in loc sa porneasca de la calea lui
+     *
+     * @param prefix prefixul folderului
+     * @param name   numele folderului
+     * @return prefixul nodurilor din folder
+     */
+    static String childPrefix(String prefix, String name)
+    {
+        return name.equals("/") ? prefix + "/" : prefix + name + "/";
+    }
 
-        if(!parent.getName().equals("/"))
+    /**
+     * Calculeaza prefixul nodului(calea lui este pathOf(getPrefix(), getName()))
+     *
+     * @return prefixul nodului
+     */
+    public String getPrefix()
+    {
+        //parintii cu numele "/" adauga cate un /, pana la primul parinte cu o cale obisnuita
+        int slashes = 0;
+        FileSystem node = getNodeParent();
+        while(node != null && node.getName().equals("/"))
         {
-            do
-            {
-                pathStack.push(parent.getName());
-                parent = parent.getNodeParent();
-            }
-            while (parent != null);
+            slashes++;
+            node = node.getNodeParent();
+        }
 
-            //Acum ca avem toate tokenurile, construieste un sir ce reprezinta calea catre nod
-            while (!pathStack.isEmpty())
-            {
-                String token = pathStack.pop();
+        StringBuilder prefix = new StringBuilder();
+        if(node != null)
+        {
+            prefix.append(node.getPath()).append('/');
+        }
+        for(int i = 0; i < slashes; i++)
+        {
+            prefix.append('/');
+        }
 
-                if(!token.equals("/"))
-                {
-                    fullPath.append(token + "/");
-                }
-                else
-                {
-                    //Daca am ajuns la root, nu mai adaugam / pentru ca am obtine // in loc de /
-                    fullPath.append(token);
-                }
-            }
+        return prefix.toString();
+    }
+
+    /**
+     * Intoarce adancimea nodului in arbore(root are adancimea 0)
+     * Adancimea este salvata in nod si invalidata, la fel ca si calea, cand un nod este mutat
+     *
+     * @return adancimea nodului
+     */
+    public int getDepth()
+    {
+        //urca pana la primul nod cu adancimea valida(sau pana la un nod fara parinte)
+        long generationStamp = (pathGeneration + 1) << DEPTH_BITS;
+        FileSystem node = this;
+        int steps = 0;
+        int nodeDepth;
+        while((nodeDepth = node.validDepth(generationStamp)) < 0 && node.getNodeParent() != null)
+        {
+            node = node.getNodeParent();
+            steps++;
         }
-        else
+
+        int depth = Math.max(nodeDepth, 0) + steps;
+
+        //salveaza adancimea pentru toate nodurile parcurse
+        node = this;
+        for(int i = 0; i <= steps; i++)
         {
-            fullPath = new StringBuilder("/");
+            node.depthStamp = generationStamp | (depth - i);
+            node = node.getNodeParent();
         }
 
-        String str = fullPath.toString();
-        if(str.length() > 1 && str.charAt(str.length() - 1) == '/')
+        return depth;
+    }
+
+    /**
+     * Intoarce adancimea salvata a nodului, daca este inca valida
+     *
+     * @param generationStamp generatia curenta a cailor(+ 1), deplasata peste bitii de adancime
+     * @return adancimea salvata, daca a fost calculata in generatia curenta
+     *         -1, altfel
+     */
+    private int validDepth(long generationStamp)
+    {
+        long stamp = depthStamp;
+        return (stamp & ~DEPTH_MASK) == generationStamp ? (int)(stamp & DEPTH_MASK) : -1;
+    }
+
+    /**
+     * Verifica daca nodul curent este stramos al unui alt nod(sau chiar nodul respectiv)
+     * Se compara adancimile celor doua noduri, apoi se urca din nodul dat exact cu diferenta de adancime,
+     * fara a construi cai sau alte obiecte
+     *
+     * @param node nodul verificat
+     * @return true, daca node se afla in subarborele nodului curent
+     *         false, altfel
+     */
+    public boolean isAncestorOf(FileSystem node)
+    {
+        int depthDifference = node.getDepth() - this.getDepth();
+
+        for(int i = 0; i < depthDifference && node != null; i++)
         {
-            //sterge / de la finalul pathului
-            str = str.substring(0, str.length() - 1);
+            node = node.getNodeParent();
         }
 
-        return str;
+        return node == this;
     }
 
     /**
@@ -214,7 +465,7 @@ public abstract class FileSystem implements Comparable, Cloneable
      */
     public static FileSystem getCurrentDirectory()
     {
-        return currentDirectory;
+        return Session.current().getCurrentDirectory();
     }
 
     /**
@@ -224,7 +475,7 @@ public abstract class FileSystem implements Comparable, Cloneable
      */
     public static void setCurrentDirectory(FileSystem directory)
     {
-        currentDirectory = directory;
+        Session.current().setCurrentDirectory(directory);
     }
 
     /**
@@ -294,18 +545,49 @@ public abstract class FileSystem implements Comparable, Cloneable
      */
     public void rm()
     {
-        boolean containsWorkingDirectory = false;
-
-        //Verifica daca incercam sa stergem un nod in al carui subarbore se afla directorul curent
-        if(FileSystem.getCurrentDirectory().getPath().contains(this.getPath()))
+        /*
+            In modul concurent, lacatul parintelui este luat inainte de stergere; daca intre timp nodul a fost
+            mutat de o alta sesiune, lacatul este eliberat si se incearca din nou cu noul parinte
+         */
+        FileSystem parent = this.getNodeParent();
+        while(TreeLocks.isEnabled())
         {
-            containsWorkingDirectory = true;
+            TreeLocks.lockWrite(parent, null);
+            if(this.getNodeParent() == parent)
+            {
+                break;
+            }
+
+            TreeLocks.unlockWrite(parent, null);
+            parent = this.getNodeParent();
         }
 
-        if(!containsWorkingDirectory)
+        try
+        {
+            //Verifica daca incercam sa stergem un nod in al carui subarbore se afla directorul curent
+            boolean containsWorkingDirectory = this.isAncestorOf(FileSystem.getCurrentDirectory());
+
+            if(TreeLocks.isEnabled() && (parent == null || parent.getChild(this.getName()) != this))
+            {
+                //nodul a fost deja sters de o alta sesiune
+                return;
+            }
+
+            if(!containsWorkingDirectory)
+            {
+                //Sterge nodul curent din lista de noduri a parintelui
+                this.getNodeParent().remove(this);
+                this.discard();
+
+                if(Main.journal != null)
+                {
+                    Main.journal.recordRm(this.getNodeParent(), this.getName());
+                }
+            }
+        }
+        finally
         {
-            //Sterge nodul curent din lista de noduri a parintelui
-            this.getNodeParent().remove(this);
+            TreeLocks.unlockWrite(parent, null);
         }
     }
 
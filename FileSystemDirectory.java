@@ -1,22 +1,54 @@
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.TreeSet;
-import java.util.LinkedList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
-import java.util.Stack;
-import java.util.Queue;
 
 /**
  * Implementeaza nodurile de tip folder
  */
 public class FileSystemDirectory extends FileSystem
 {
+    /**
+     * Separatorul de linii folosit de PrintWriter(println)
+     */
+    private static final String LINE_SEPARATOR = System.lineSeparator();
     /**
      * Set continand numele nodurile continute in folderul curent, in ordine lexicografica
      */
     TreeSet<FileSystem> fileSystemTree;
+    /**
+     * Index nume -> nod peste aceleasi noduri ca fileSystemTree, pentru cautari in O(1)
+     * Este actualizat impreuna cu fileSystemTree in add/remove
+     */
+    private HashMap<String, FileSystem> childrenIndex;
     /**
      * Numele folderului
      */
     private String directoryName;
+    /**
+     * Directorul al carui continut este copiat de directorul curent(copie lazy creata de cp)
+     * Cat timp nu este null, nodurile folderului curent nu au fost inca construite, ele sunt
+     * copii ale nodurilor din lazySource, asa cum erau acestea in momentul copierii
+     */
+    private FileSystemDirectory lazySource;
+    /**
+     * Copiile lazy care depind inca de continutul(si subarborele) folderului curent
+     */
+    private HashSet<FileSystemDirectory> lazyCopies;
+    /**
+     * Numarul total de copii lazy care depind inca de alte foldere
+     * Cat timp este 0, modificarile nu trebuie sa verifice stramosii folderului modificat
+     */
+    private static int lazyCopiesCount = 0;
+    /**
+     * true daca in subarborele folderului(inclusiv folderul) a existat vreodata o copie lazy
+     * Ramane true si dupa ce copiile sunt construite; daca un folder este marcat, sunt marcati si toti stramosii lui,
+     * astfel discard coboara doar in subarborii in care pot exista copii lazy
+     */
+    private boolean containsLazyCopies;
 
     /**
      * Construieste un nou obiect de tip FileSystemDirectory
@@ -26,39 +58,346 @@ public class FileSystemDirectory extends FileSystem
     public FileSystemDirectory(String directoryName)
     {
         fileSystemTree = new TreeSet<>();
+        childrenIndex  = new HashMap<>();
         this.directoryName = directoryName;
     }
 
 
     /**
      * Intoarce un iterator peste continutul folderului
+     * In modul concurent, iteratorul parcurge o copie a continutului, facuta sub lacatul de citire,
+     * astfel parcurgerea nu tine lacatul si nu este afectata de modificarile facute de alte sesiuni
      *
      * @return iterator
      */
     public Iterator<FileSystem> createIterator()
     {
+        if(TreeLocks.isEnabled())
+        {
+            TreeLocks.lockRead(this);
+            try
+            {
+                return new ArrayList<>(fileSystemTree).iterator();
+            }
+            finally
+            {
+                TreeLocks.unlockRead(this);
+            }
+        }
+
+        materialize();
         return fileSystemTree.iterator();
     }
 
     /**
-     * Cloneaza un director si recursiv realizeaza o clona a tuturor nodurilor din directorul curent
+     * Intoarce un iterator peste continutul folderului pentru o parcurgere care doar citeste
+     * Spre deosebire de createIterator, o copie lazy nu este construita(este parcurs continutul sursei ei),
+     * deci iteratorul poate fi folosit in acelasi timp din mai multe threaduri
+     * Nodurile intoarse pot apartine sursei, deci calea lor nu este neaparat calea din folderul curent
      *
-     * @return un no director cu acelasi nume ca directorul curent
+     * @return iterator
+     */
+    Iterator<FileSystem> createReadOnlyIterator()
+    {
+        if(TreeLocks.isEnabled())
+        {
+            //in modul concurent nu exista copii lazy, iar continutul este copiat sub lacatul de citire
+            return createIterator();
+        }
+
+        return getSharedChildren().iterator();
+    }
+
+    /**
+     * Intoarce continutul folderului pentru a fi parcurs(si impartit) din mai multe threaduri
+     * Spre deosebire de createReadOnlyIterator, o copie lazy este construita(doar primul nivel), deci nodurile
+     * intoarse sunt chiar nodurile folderului; de aceea metoda trebuie apelata din threadul care executa comanda
+     * Colectia intoarsa este doar citita
+     *
+     * @return nodurile folderului, in ordine lexicografica
+     */
+    Collection<FileSystem> getChildrenForParallelReading()
+    {
+        if(TreeLocks.isEnabled())
+        {
+            TreeLocks.lockRead(this);
+            try
+            {
+                return new ArrayList<>(fileSystemTree);
+            }
+            finally
+            {
+                TreeLocks.unlockRead(this);
+            }
+        }
+
+        materialize();
+        return fileSystemTree;
+    }
+
+    /**
+     * Cloneaza un director impreuna cu toate nodurile din subarborele lui
+     * Subarborele este parcurs cu o stiva explicita, astfel incat adancimea arborelui nu este limitata de stiva thread-ului
+     * In modul paralel, subarborele este copiat de ParallelCopy
+     *
+     * @return un nou director cu acelasi nume ca directorul curent
      * @throws CloneNotSupportedException in cazul in care obiectul nu poate sa fie clonat
      */
     public Object clone() throws CloneNotSupportedException
     {
+        if(ParallelTasks.isEnabled())
+        {
+            return ParallelCopy.copy(this);
+        }
+
         FileSystemDirectory newDirectory = new FileSystemDirectory(this.getName());
 
-        for(FileSystem file : fileSystemTree)
+        //perechi (director sursa, copia lui) ale caror noduri nu au fost inca copiate
+        ArrayDeque<FileSystemDirectory> sources = new ArrayDeque<>();
+        ArrayDeque<FileSystemDirectory> copies = new ArrayDeque<>();
+        sources.push(this);
+        copies.push(newDirectory);
+
+        while(!sources.isEmpty())
         {
-            //Adauga un noul director clonele copiilor lui
-            newDirectory.add((FileSystem)file.clone());
+            FileSystemDirectory source = sources.pop();
+            FileSystemDirectory copy = copies.pop();
+
+            Iterator<FileSystem> iter = source.createIterator();
+            while(iter.hasNext())
+            {
+                FileSystem node = iter.next();
+                FileSystem nodeCopy;
+
+                if(node instanceof FileSystemDirectory)
+                {
+                    //continutul folderului este copiat cand perechea este scoasa de pe stiva
+                    FileSystemDirectory directoryCopy = new FileSystemDirectory(node.getName());
+                    sources.push((FileSystemDirectory)node);
+                    copies.push(directoryCopy);
+                    nodeCopy = directoryCopy;
+                }
+                else
+                {
+                    nodeCopy = (FileSystem)node.clone();
+                }
+
+                //copia este noua, nicio copie lazy nu depinde de ea, deci nu trecem prin add
+                nodeCopy.setNodeParent(copy);
+                copy.fileSystemTree.add(nodeCopy);
+                copy.childrenIndex.put(nodeCopy.getName(), nodeCopy);
+            }
         }
 
         return newDirectory;
     }
 
+    /**
+     * Construieste o copie lazy a directorului: un director cu acelasi nume care partajeaza
+     * subarborele cu directorul curent pana cand unul dintre ele este modificat
+     *
+     * @return copia directorului
+     */
+    public FileSystem lazyClone()
+    {
+        FileSystemDirectory newDirectory = new FileSystemDirectory(this.getName());
+
+        //Daca directorul curent este el insusi o copie lazy, copia depinde direct de sursa lui
+        FileSystemDirectory source = (lazySource != null) ? lazySource : this;
+        source.registerLazyCopy(newDirectory);
+
+        return newDirectory;
+    }
+
+    /**
+     * Inregistreaza o copie lazy care depinde de continutul folderului curent
+     *
+     * @param copy copia lazy
+     */
+    private void registerLazyCopy(FileSystemDirectory copy)
+    {
+        if(lazyCopies == null)
+        {
+            lazyCopies = new HashSet<>();
+        }
+
+        copy.lazySource = this;
+        copy.containsLazyCopies = true; //copia este noua, stramosii ei sunt marcati cand este legata(add, materialize)
+        lazyCopies.add(copy);
+        lazyCopiesCount++;
+    }
+
+    /**
+     * Marcheaza folderul curent si stramosii lui ca avand copii lazy in subarbore
+     * Urcarea se opreste la primul folder deja marcat(stramosii lui sunt deja marcati)
+     */
+    private void markContainsLazyCopies()
+    {
+        FileSystemDirectory directory = this;
+        while(directory != null && !directory.containsLazyCopies)
+        {
+            directory.containsLazyCopies = true;
+            directory = (FileSystemDirectory)directory.getNodeParent();
+        }
+    }
+
+    /**
+     * Sterge o copie lazy din lista copiilor care depind de folderul curent
+     *
+     * @param copy copia lazy
+     */
+    private void unregisterLazyCopy(FileSystemDirectory copy)
+    {
+        if(lazyCopies.remove(copy))
+        {
+            lazyCopiesCount--;
+        }
+
+        copy.lazySource = null;
+    }
+
+    /**
+     * Construieste nodurile unei copii lazy(doar primul nivel)
+     * Fisierele sunt copiate direct, iar folderele devin la randul lor copii lazy
+     */
+    private void materialize()
+    {
+        if(lazySource == null)
+        {
+            return;
+        }
+
+        FileSystemDirectory source = lazySource;
+        source.unregisterLazyCopy(this);
+
+        for(FileSystem node : source.fileSystemTree)
+        {
+            FileSystem copy = node.lazyClone();
+            copy.setNodeParent(this);
+
+            fileSystemTree.add(copy);
+            childrenIndex.put(copy.getName(), copy);
+        }
+    }
+
+    /**
+     * Construieste nodurile tuturor copiilor lazy care depind de folderul curent
+     */
+    private void materializeLazyCopies()
+    {
+        if(lazyCopies == null || lazyCopies.isEmpty())
+        {
+            return;
+        }
+
+        for(FileSystemDirectory copy : new ArrayList<>(lazyCopies))
+        {
+            copy.materialize();
+        }
+    }
+
+    /**
+     * Pregateste folderul curent pentru o modificare(add/remove)
+     * Toate copiile lazy care ar putea vedea modificarea(copii ale folderului sau ale unui stramos)
+     * sunt construite inainte, astfel incat sa pastreze continutul din momentul copierii
+     */
+    private void prepareForMutation()
+    {
+        materialize();
+
+        if(lazyCopiesCount == 0)
+        {
+            //nu exista copii lazy, nu avem ce construi
+            return;
+        }
+
+        ArrayList<FileSystemDirectory> ancestors = new ArrayList<>();
+        for(FileSystem node = this; node != null; node = node.getNodeParent())
+        {
+            ancestors.add((FileSystemDirectory)node);
+        }
+
+        /*
+            Copiile sunt construite de la root in jos: construirea copiilor unui stramos creeaza
+            copii lazy ale copiilor lui, care sunt construite la randul lor la pasul urmator
+         */
+        for(int i = ancestors.size() - 1; i >= 0; i--)
+        {
+            ancestors.get(i).materializeLazyCopies();
+        }
+    }
+
+    /**
+     * Seteaza in bloc continutul unui folder nou(gol, care nu este copie lazy)
+     * Nodurile sunt deja in ordine lexicografica, astfel TreeSet-ul este construit in timp liniar,
+     * fara comparatii si fara trecerea prin add pentru fiecare nod
+     *
+     * @param children nodurile noi ale folderului, in ordine strict crescatoare
+     */
+    void setChildren(SortedChildren children)
+    {
+        //capacitatea este aleasa astfel incat indexul sa nu fie redimensionat
+        childrenIndex = new HashMap<>(children.size() * 4 / 3 + 1);
+
+        for(FileSystem node : children)
+        {
+            node.setNodeParent(this);
+            childrenIndex.put(node.getName(), node);
+        }
+
+        fileSystemTree.addAll(children);
+    }
+
+    /**
+     * Intoarce nodurile folderului fara a construi o copie lazy
+     * Pentru o copie lazy intoarce nodurile sursei, care au acelasi continut ca cele ale copiei;
+     * multimea intoarsa este doar citita(de exemplu la salvarea unui snapshot)
+     *
+     * @return nodurile folderului, in ordine lexicografica
+     */
+    TreeSet<FileSystem> getSharedChildren()
+    {
+        return (lazySource != null) ? lazySource.fileSystemTree : fileSystemTree;
+    }
+
+    /**
+     * Renunta la continutul partajat al copiilor lazy dintr-un subarbore care a fost sters din sistemul de fisiere
+     * Pe langa folderul sters, si folderele din subarborele lui pot fi copii lazy(create de materialize);
+     * daca ar ramane inregistrate la sursele lor, subarborele nu ar mai fi eliberat, iar lazyCopiesCount
+     * nu ar mai ajunge la 0. Sunt parcursi doar subarborii marcati cu containsLazyCopies, si doar cat timp
+     * exista copii lazy inregistrate
+     */
+    public void discard()
+    {
+        if(!containsLazyCopies)
+        {
+            return;
+        }
+
+        ArrayDeque<FileSystemDirectory> stack = new ArrayDeque<>();
+        stack.push(this);
+
+        while(!stack.isEmpty() && lazyCopiesCount > 0)
+        {
+            FileSystemDirectory directory = stack.pop();
+
+            if(directory.lazySource != null)
+            {
+                //nodurile unei copii lazy nu au fost construite, deci nu are subarbore propriu
+                directory.lazySource.unregisterLazyCopy(directory);
+                continue;
+            }
+
+            for(FileSystem node : directory.fileSystemTree)
+            {
+                if(node instanceof FileSystemDirectory && ((FileSystemDirectory)node).containsLazyCopies)
+                {
+                    stack.push((FileSystemDirectory)node);
+                }
+            }
+        }
+    }
+
     /**
      * Adauga un nou nod in multimea de noduri ale nodului curent
      *
@@ -66,8 +405,27 @@ public class FileSystemDirectory extends FileSystem
      */
     public void add(FileSystem node)
     {
-        node.setNodeParent(this); //seteaza parintele nodului ce trebuie adaugat
-        fileSystemTree.add(node);
+        TreeLocks.lockWrite(this);
+        try
+        {
+            prepareForMutation();
+            node.setNodeParent(this); //seteaza parintele nodului ce trebuie adaugat
+
+            if(fileSystemTree.add(node))
+            {
+                //nodul a fost adaugat(nu exista deja un nod cu acelasi nume), il adaugam si in index
+                childrenIndex.put(node.getName(), node);
+
+                if(node instanceof FileSystemDirectory && ((FileSystemDirectory)node).containsLazyCopies)
+                {
+                    markContainsLazyCopies();
+                }
+            }
+        }
+        finally
+        {
+            TreeLocks.unlockWrite(this);
+        }
     }
 
     /**
@@ -76,7 +434,20 @@ public class FileSystemDirectory extends FileSystem
      */
     public void remove(FileSystem node)
     {
-        fileSystemTree.remove(node);
+        TreeLocks.lockWrite(this);
+        try
+        {
+            prepareForMutation();
+
+            if(fileSystemTree.remove(node))
+            {
+                childrenIndex.remove(node.getName());
+            }
+        }
+        finally
+        {
+            TreeLocks.unlockWrite(this);
+        }
     }
 
     /**
@@ -98,18 +469,33 @@ public class FileSystemDirectory extends FileSystem
      */
     public boolean find(String name)
     {
-        Iterator<FileSystem> iterator = createIterator();
+        return getChild(name) != null;
+    }
 
-        while (iterator.hasNext())
+    /**
+     * Intoarce nodul cu un anumit nume din folderul curent
+     *
+     * @param name numele nodului cautat
+     * @return referinta catre nod, daca exista
+     *         null, altfel
+     */
+    public FileSystem getChild(String name)
+    {
+        if(TreeLocks.isEnabled())
         {
-            FileSystem node = iterator.next();
-            if(node.getName().equals(name)) //compara numele nodului cu numele de referinta
+            TreeLocks.lockRead(this);
+            try
+            {
+                return childrenIndex.get(name);
+            }
+            finally
             {
-                return true;
+                TreeLocks.unlockRead(this);
             }
         }
 
-        return false;
+        materialize();
+        return childrenIndex.get(name);
     }
 
     /**
@@ -119,16 +505,48 @@ public class FileSystemDirectory extends FileSystem
      */
     public void ls(Command grepCommand)
     {
-        Main.outputFileWriter.println(getPath() + ":");
+        StringBuilder text = new StringBuilder();
+        appendListing(getPath(), createIterator(), null, grepCommand, text);
 
-        Iterator<FileSystem> iter = createIterator();
+        Session.output().append(text);
+    }
+
+    /**
+     * Formateaza listarea unui folder, asa cum este scrisa de ls: calea folderului, apoi caile nodurilor
+     * separate printr-un spatiu(doar cele care respecta grep-ul, daca exista) si o linie goala
+     * Este folosita si de ParallelListing, deci ambele variante scriu acelasi text
+     *
+     * @param path        calea folderului
+     * @param iter        iteratorul peste nodurile folderului
+     * @param nodePrefix  prefixul nodurilor(calea unui nod este pathOf(nodePrefix, nume)) sau null,
+     *                    daca sunt folosite caile salvate in noduri(getPath)
+     * @param grepCommand referinta catre o comanda grep(poate sa fie null)
+     * @param text        bufferul in care se scrie listarea
+     */
+    static void appendListing(String path, Iterator<FileSystem> iter, String nodePrefix, Command grepCommand,
+                              StringBuilder text)
+    {
+        text.append(path).append(':').append(LINE_SEPARATOR);
+
+        GrepCommand grep = null;
+        CommandInvoker commandInvoker = null;
+        if(grepCommand != null)
+        {
+            //acelasi invoker este folosit pentru toate nodurile din director
+            grep = (GrepCommand)grepCommand; //trebuie sa facem cast de la Command la GrepCommand
+            commandInvoker = new CommandInvoker();
+            commandInvoker.setCommand(grep);
+        }
+
+        //nodurile sunt separate printr-un spatiu, fara spatiu dupa ultimul nod afisat
+        boolean firstPrinted = true;
 
         while(iter.hasNext())
         {
             boolean printData = true;
             FileSystem node = iter.next();
 
-            if(grepCommand != null)
+            if(grep != null)
             {
                 /*
                     Daca am primit si o comanda grep, trebuie sa verificam daca numele nodului respecta patternul
@@ -136,11 +554,7 @@ public class FileSystemDirectory extends FileSystem
                     Apelam comanda grep si verificam valoarea intoarsa
 
                  */
-                GrepCommand grep = (GrepCommand)grepCommand; //trebuie sa facem cast de la Command la GrepCommand
-                grep.setStringToCheck(node.getPath());
-
-                CommandInvoker commandInvoker = new CommandInvoker();
-                commandInvoker.setCommand(grep);
+                grep.setStringToCheck(node.getName());
                 commandInvoker.invokeCommand();
 
                 printData = grep.getReturn();
@@ -148,61 +562,71 @@ public class FileSystemDirectory extends FileSystem
 
             if(printData)
             {
-                Main.outputFileWriter.print(node.getPath() + " ");
+                if(!firstPrinted)
+                {
+                    text.append(' ');
+                }
+
+                text.append(nodePrefix == null ? node.getPath() : pathOf(nodePrefix, node.getName()));
+                firstPrinted = false;
             }
         }
 
-        Main.outputFileWriter.println();
-        Main.outputFileWriter.println();
+        text.append(LINE_SEPARATOR).append(LINE_SEPARATOR);
     }
 
     /**
-     * Implementeaza parcurgerea depth first a unui director
+     * Construieste o comanda grep cu acelasi pattern, dar cu propriul Matcher, pentru un alt thread
      *
-     * @param node         directorul pe care il parcurgem
-     * @param visited      stiva ce contine nodurile vizitate deja
-     * @param orderedNodes coada ce contine nodurile in ordinea in care trebuie afisate
+     * @param grepCommand referinta catre o comanda grep(poate sa fie null)
+     * @return copia comenzii sau null, daca grepCommand este null
      */
-    private void depthFirstSearch(FileSystem node, Stack<FileSystem> visited, Queue<FileSystem> orderedNodes)
+    static Command copyGrep(Command grepCommand)
     {
-        //Daca nodul este un folder, il adaugam in coada de noduri ce trebuie afisate
-        if(node instanceof FileSystemDirectory)
-        {
-            orderedNodes.add(node);
-        }
-
-        Iterator<FileSystem> iter = node.createIterator();
-
-        while(iter.hasNext())
-        {
-            FileSystem nodeToCheck = iter.next();
-
-            if(!visited.contains(nodeToCheck)) //daca nodul nu a mai fost vizitat
-            {
-                visited.push(nodeToCheck); //il marcheaza ca vizitat
-                depthFirstSearch(nodeToCheck, visited, orderedNodes); //apeleaza depthFirstSearch pe noul nod
-            }
-        }
+        return grepCommand == null ? null : ((GrepCommand)grepCommand).copy();
     }
 
     /**
      * Implementare efectiva o comenzii ls -R - listeaza recursiv continutul unui director
+     * Directoarele sunt parcurse in preordine, iar fiecare director este listat in momentul in care este atins
+     * Stiva contine cate un iterator pentru fiecare director de pe drumul curent, deci memoria folosita
+     * este proportionala cu adancimea arborelui, nu cu dimensiunea lui
+     * In modul paralel, listarea este facuta de ParallelListing
      *
      * @param grepCommand referinta catre o comanda grep
      */
     public void recursiveLS(Command grepCommand)
     {
-        Stack<FileSystem> visitedNodesStack = new Stack<>();
-        Queue<FileSystem> orderedNodes = new LinkedList<>();
+        if(ParallelTasks.isEnabled())
+        {
+            ParallelListing.recursiveLS(this, grepCommand, Session.output());
+            return;
+        }
 
-        //Construieste o coada cu nodurile ce trebuie afisate in ordinea corecta
-        depthFirstSearch(this, visitedNodesStack, orderedNodes);
+        ArrayDeque<Iterator<FileSystem>> iteratorsStack = new ArrayDeque<>();
 
-        while(!orderedNodes.isEmpty())
+        this.ls(grepCommand);
+        iteratorsStack.push(this.createIterator());
+
+        while(!iteratorsStack.isEmpty())
         {
-            //Ia cate un nod din coada si apeleaza comanda ls pe el
-            FileSystem node = orderedNodes.remove();
-            node.ls(grepCommand);
+            Iterator<FileSystem> iter = iteratorsStack.peek();
+
+            if(!iter.hasNext())
+            {
+                //am terminat de parcurs directorul din varful stivei, revenim la parintele lui
+                iteratorsStack.pop();
+                continue;
+            }
+
+            FileSystem node = iter.next();
+
+            //Doar folderele sunt listate si parcurse mai departe
+            if(node instanceof FileSystemDirectory)
+            {
+                node.ls(grepCommand);
+                iteratorsStack.push(node.createIterator());
+            }
         }
     }
 
@@ -212,7 +636,7 @@ public class FileSystemDirectory extends FileSystem
     public void pwd()
     {
         FileSystem currentDirectory = FileSystem.getCurrentDirectory(); //ia directorul curent
-        Main.outputFileWriter.println(currentDirectory.getPath()); //il scrie in fisierul de output
+        Session.output().println(currentDirectory.getPath()); //il scrie in fisierul de output
     }
 
     /**
@@ -222,28 +646,35 @@ public class FileSystemDirectory extends FileSystem
     {
         //nodul this trebuie sa devina current directory
         FileSystem.setCurrentDirectory(this);
+
+        if(Main.journal != null)
+        {
+            Main.journal.recordCd(this);
+        }
     }
 
     /**
      * Implementare efectiva a comenzii cp - copiaza un nod
+     * Un folder este copiat lazy: copia partajeaza subarborele cu sursa, iar nodurile ei sunt construite
+     * doar cand sunt accesate sau cand sursa/copia este modificata, deci copierea are cost constant
      *
      * @param sourceNode sursa ce trebuie copiata
      */
     public void cp(FileSystem sourceNode)
     {
-        //Incearca sa adaugi in nodul curent o clona a nodului de copiat
-        try
-        {
-            this.add((FileSystem)sourceNode.clone());
-        }
-        catch(CloneNotSupportedException ex)
+        //Copia este inregistrata la sursa inainte de add, pentru ca add poate modifica chiar subarborele sursei
+        this.add(sourceNode.lazyClone());
+
+        if(Main.journal != null)
         {
-            return;
+            Main.journal.recordCp(sourceNode, this);
         }
     }
 
     /**
      * Implementare efectiva a comenzii mv - muta un nod
+     * Subarborele sursei nu este copiat, ci doar dezlegat de vechiul parinte si legat de nodul curent,
+     * deci mutarea are cost constant, iar nodurile din subarbore(inclusiv directorul curent) raman aceleasi
      *
      * @param sourceNode sursa ce trebuie mutata
      */
@@ -251,32 +682,32 @@ public class FileSystemDirectory extends FileSystem
     {
         FileSystem sourceParent = sourceNode.getNodeParent();
 
-        //Verifica daca se incearca mutarea unui subarbore ce contine directorul curent
-        boolean updateCurrentDirectory = false;
-        if(FileSystem.getCurrentDirectory().getPath().contains(sourceNode.getPath()))
+        if(sourceParent == null)
         {
-            updateCurrentDirectory = true;
+            //root nu poate fi mutat
+            return;
         }
 
+        //Verifica daca se incearca mutarea sursei in propriul subarbore
+        boolean moveIntoItself = sourceNode.isAncestorOf(this);
+
         //Sterge sursa din lista de noduri a vechiului parinte
         sourceParent.remove(sourceNode);
 
-        FileSystem directory;
-        try
-        {
-            //Insereaza in nodul curent o clona a sursei
-            directory = (FileSystem)sourceNode.clone();
-            this.add(directory);
-        }
-        catch(CloneNotSupportedException ex)
+        /*
+            Daca destinatia se afla in subarborele sursei, legarea ar crea un ciclu
+            La fel ca atunci cand se insera o clona in subarborele deja dezlegat, sursa ramane doar stearsa
+         */
+        if(!moveIntoItself)
         {
-            return;
+            //Leaga sursa de nodul curent(add actualizeaza parintele si invalideaza caile salvate)
+            this.add(sourceNode);
         }
 
-        //Actualizeaza directorul curent
-        if(updateCurrentDirectory)
+        if(Main.journal != null)
         {
-            FileSystem.setCurrentDirectory(directory);
+            //mutarea este inregistrata dupa ce a reusit, cu calea pe care sursa o avea inainte
+            Main.journal.recordMv(sourceParent, sourceNode, this);
         }
     }
 
@@ -288,6 +719,11 @@ public class FileSystemDirectory extends FileSystem
     public void touch(String fileName)
     {
         add(new FileSystemFile(fileName));
+
+        if(Main.journal != null)
+        {
+            Main.journal.recordTouch(this, fileName);
+        }
     }
 
     /**
@@ -298,5 +734,10 @@ public class FileSystemDirectory extends FileSystem
     public void mkdir(String folderName)
     {
         add(new FileSystemDirectory(folderName));
+
+        if(Main.journal != null)
+        {
+            Main.journal.recordMkdir(this, folderName);
+        }
     }
 }
@@ -87,6 +87,17 @@ public class FileSystemFile extends FileSystem
        return false;
    }
 
+    /**
+     * Construieste o copie a fisierului
+     * Un fisier nu are subarbore care sa poata fi partajat, deci copia este construita imediat
+     *
+     * @return un nou fisier cu acelasi nume ca fisierul curent
+     */
+    public FileSystem lazyClone()
+    {
+        return new FileSystemFile(this.getName());
+    }
+
     /**
      * Cloneaza un fisier
      *
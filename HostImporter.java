@@ -0,0 +1,140 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Construieste noduri FileSystemDirectory/FileSystemFile dupa un director real de pe disc
+ * Fiecare folder este citit de un task separat dintr-un ForkJoinPool, deci subarborii sunt parcursi in paralel
+ * Nodurile unui folder sunt sortate si adaugate in bloc(setChildren), fara add pentru fiecare nod
+ * Legaturile simbolice nu sunt urmate(devin fisiere), astfel parcurgerea nu poate intra intr-un ciclu
+ */
+public class HostImporter
+{
+    /**
+     * Constructorul este private, clasa contine doar metode statice
+     */
+    private HostImporter()
+    {
+
+    }
+
+    /**
+     * Citeste continutul unui folder de pe disc intr-un folder nou, apoi porneste cate un task
+     * pentru fiecare subfolder
+     */
+    private static class DirectoryTask extends RecursiveAction
+    {
+        /**
+         * Versiunea formatului serializat(taskurile nu sunt serializate, dar RecursiveAction este Serializable)
+         */
+        private static final long serialVersionUID = 1L;
+        /**
+         * Folderul de pe disc
+         */
+        private Path hostDirectory;
+        /**
+         * Folderul construit(nou, inca nelegat de sistemul de fisiere)
+         */
+        private FileSystemDirectory directory;
+
+        /**
+         * Construieste un obiect de tip DirectoryTask
+         *
+         * @param hostDirectory folderul de pe disc
+         * @param directory     folderul construit
+         */
+        DirectoryTask(Path hostDirectory, FileSystemDirectory directory)
+        {
+            this.hostDirectory = hostDirectory;
+            this.directory = directory;
+        }
+
+        /**
+         * Construieste nodurile folderului si asteapta construirea subfolderelor
+         */
+        protected void compute()
+        {
+            ArrayList<FileSystem> children = new ArrayList<>();
+            ArrayList<DirectoryTask> subtasks = new ArrayList<>();
+
+            try(DirectoryStream<Path> entries = Files.newDirectoryStream(hostDirectory))
+            {
+                for(Path entry : entries)
+                {
+                    String name = entry.getFileName().toString();
+                    BasicFileAttributes attributes = Files.readAttributes(entry, BasicFileAttributes.class,
+                                                                          LinkOption.NOFOLLOW_LINKS);
+
+                    if(attributes.isDirectory())
+                    {
+                        FileSystemDirectory childDirectory = new FileSystemDirectory(name);
+                        children.add(childDirectory);
+                        subtasks.add(new DirectoryTask(entry, childDirectory));
+                    }
+                    else
+                    {
+                        children.add(new FileSystemFile(name));
+                    }
+                }
+            }
+            catch(IOException ex)
+            {
+                throw new UncheckedIOException(ex);
+            }
+
+            //subfolderele sunt construite in paralel; fiecare task modifica doar propriul folder
+            invokeAll(subtasks);
+
+            //numele dintr-un folder sunt distincte, deci dupa sortare ordinea este strict crescatoare
+            FileSystem[] sortedChildren = children.toArray(new FileSystem[0]);
+            Arrays.sort(sortedChildren);
+            directory.setChildren(new SortedChildren(sortedChildren, sortedChildren.length));
+        }
+    }
+
+    /**
+     * Construieste un nod(impreuna cu subarborele lui) dupa un fisier sau folder de pe disc
+     * Nodul intors nu are parinte, el trebuie adaugat in sistemul de fisiere
+     *
+     * @param hostPath calea de pe disc
+     * @return nodul construit
+     * @throws IOException daca calea nu exista sau un folder nu poate sa fie citit
+     */
+    public static FileSystem importTree(Path hostPath) throws IOException
+    {
+        Path fileName = hostPath.getFileName();
+        String name = (fileName != null) ? fileName.toString() : hostPath.toString();
+
+        BasicFileAttributes attributes = Files.readAttributes(hostPath, BasicFileAttributes.class);
+        if(!attributes.isDirectory())
+        {
+            return new FileSystemFile(name);
+        }
+
+        FileSystemDirectory directory = new FileSystemDirectory(name);
+        try
+        {
+            ForkJoinPool.commonPool().invoke(new DirectoryTask(hostPath, directory));
+        }
+        catch(UncheckedIOException ex)
+        {
+            //exceptia aruncata de un alt thread poate sa fie reimpachetata de ForkJoinTask
+            Throwable cause = ex;
+            while(cause instanceof UncheckedIOException)
+            {
+                cause = cause.getCause();
+            }
+            throw (IOException)cause;
+        }
+
+        return directory;
+    }
+}
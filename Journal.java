@@ -0,0 +1,868 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+
+/**
+ * Jurnal binar al modificarilor facute asupra sistemului de fisiere(mkdir, touch, rm, cp, mv, cd),
+ * impreuna cu checkpointuri periodice ale arborelui
+ * Dupa o oprire neasteptata, sistemul de fisiere este refacut din ultimul checkpoint, peste care sunt
+ * reaplicate inregistrarile din jurnal
+ *
+ * Fiecare modificare reusita este codificata intr-un buffer in memorie, dupa ce a fost aplicata(o modificare
+ * care arunca o exceptie nu ajunge in jurnal, deci jurnalul ramane aplicabil peste checkpoint); bufferul este
+ * scris(si sincronizat pe disc) ca un singur grup cand se umple, intre comenzi daca cea mai veche inregistrare
+ * asteapta de cel putin MAX_COMMIT_DELAY_NANOS, si la inchiderea jurnalului(group commit)
+ *
+ * Fisierul jurnalului: numar magic(4 octeti), epoca(8 octeti), apoi grupuri de forma
+ *   lungimea inregistrarilor(4 octeti), CRC32 al inregistrarilor(4 octeti), inregistrarile
+ * O inregistrare este tipul ei(1 octet) urmat de caile nodurilor implicate; o cale este numarul de nume
+ * de sub root(varint) urmat de nume(lungime varint si octetii UTF-8)
+ * Fisierul checkpointului(nume.checkpoint): numar magic, epoca, apoi un snapshot TreeSnapshot
+ * Caile sunt scrise pornind din root, deci modificarile din subarbori dezlegati(de exemplu directorul curent,
+ * dupa ce a fost mutat in propriul subarbore) nu sunt inregistrate; daca un nod dintr-un astfel de subarbore
+ * ajunge inapoi in arbore(cp, mv), dupa comanda respectiva este facut un checkpoint
+ * Jurnalul este aplicat doar peste checkpointul cu aceeasi epoca; un grup incomplet sau corupt(scris in timpul
+ * opririi) si tot ce urmeaza dupa el sunt ignorate
+ */
+public class Journal
+{
+    /**
+     * Numarul de inregistrari dupa care este facut un checkpoint, daca nu este specificat altul
+     */
+    public static final long DEFAULT_CHECKPOINT_INTERVAL = 1000000;
+
+    /**
+     * Numarul magic de la inceputul jurnalului("PBJ1")
+     */
+    private static final int JOURNAL_MAGIC = 0x50424A31;
+    /**
+     * Numarul magic de la inceputul unui checkpoint("PBC1")
+     */
+    private static final int CHECKPOINT_MAGIC = 0x50424331;
+    /**
+     * Dimensiunea antetului jurnalului(numarul magic si epoca)
+     */
+    private static final int JOURNAL_HEADER_SIZE = 12;
+    /**
+     * Dimensiunea antetului unui grup(lungimea si CRC32)
+     */
+    private static final int BATCH_HEADER_SIZE = 8;
+    /**
+     * Dimensiunea de la care un grup de inregistrari este scris pe disc
+     */
+    private static final int BATCH_SIZE = 1 << 16;
+    /**
+     * Timpul maxim(in nanosecunde) cat o inregistrare poate astepta in memorie; dupa el, grupul este scris
+     * la sfarsitul comenzii curente, deci o oprire neasteptata pierde doar modificarile din ultimele 50ms
+     */
+    private static final long MAX_COMMIT_DELAY_NANOS = 50000000;
+
+    /**
+     * Tipurile inregistrarilor
+     */
+    private static final int MKDIR = 1;
+    private static final int TOUCH = 2;
+    private static final int RM    = 3;
+    private static final int CP    = 4;
+    private static final int MV    = 5;
+    private static final int CD    = 6;
+
+    /**
+     * Fisierul jurnalului
+     */
+    private Path journalPath;
+    /**
+     * Fisierul checkpointului
+     */
+    private Path checkpointPath;
+    /**
+     * Nodul dummy al sistemului de fisiere jurnalizat
+     */
+    private FileSystemDirectory dummyNode;
+    /**
+     * Numarul de inregistrari dupa care este facut un checkpoint
+     */
+    private long checkpointInterval;
+    /**
+     * Epoca ultimului checkpoint(si a jurnalului curent)
+     */
+    private long epoch;
+    /**
+     * Canalul prin care se adauga grupuri la sfarsitul jurnalului
+     */
+    private FileChannel channel;
+    /**
+     * Grupul curent: antetul(completat la scriere) urmat de inregistrarile codificate
+     */
+    private byte[] batch = new byte[2 * BATCH_SIZE];
+    /**
+     * Numarul de octeti folositi din batch
+     */
+    private int batchLength = BATCH_HEADER_SIZE;
+    /**
+     * Momentul(System.nanoTime) in care a fost adaugata prima inregistrare din grupul curent
+     */
+    private long batchStartNanos;
+    /**
+     * Folosit pentru calculul sumei de control a fiecarui grup
+     */
+    private CRC32 checksum = new CRC32();
+    /**
+     * Buffer refolosit pentru nodurile unei cai(de la nod spre root)
+     */
+    private FileSystem[] pathNodes = new FileSystem[64];
+    /**
+     * Numarul de inregistrari de la ultimul checkpoint
+     */
+    private long recordsSinceCheckpoint;
+    /**
+     * true daca o scriere a esuat; jurnalul nu mai este scris
+     */
+    private boolean failed;
+    /**
+     * true daca ultima comanda a adus in arbore noduri dintr-un subarbore dezlegat, care nu pot fi descrise
+     * prin cai din root; checkpointIfDue face atunci un checkpoint
+     */
+    private boolean checkpointRequested;
+
+    /**
+     * Statistici: inregistrari scrise, grupuri scrise, octeti scrisi, checkpointuri,
+     * inregistrari reaplicate la pornire si timpul petrecut scriind grupuri
+     */
+    private long records, batches, bytes, checkpoints, replayedRecords, commitNanos;
+
+    /**
+     * Construieste un obiect de tip Journal
+     *
+     * @param fileName           fisierul jurnalului
+     * @param dummyNode          nodul dummy al sistemului de fisiere
+     * @param checkpointInterval numarul de inregistrari dupa care este facut un checkpoint
+     */
+    private Journal(String fileName, FileSystemDirectory dummyNode, long checkpointInterval)
+    {
+        this.journalPath = Paths.get(fileName);
+        this.checkpointPath = Paths.get(fileName + ".checkpoint");
+        this.dummyNode = dummyNode;
+        this.checkpointInterval = checkpointInterval;
+    }
+
+    /**
+     * Deschide un jurnal: reface sistemul de fisiere din checkpoint si din jurnal(daca exista),
+     * apoi pregateste jurnalul pentru adaugarea de noi inregistrari
+     *
+     * @param fileName           fisierul jurnalului
+     * @param dummyNode          nodul dummy al sistemului de fisiere(root-ul lui poate sa fie inlocuit)
+     * @param checkpointInterval numarul de inregistrari dupa care este facut un checkpoint
+     * @return jurnalul deschis
+     * @throws IOException in cazul unei erori de citire/scriere sau daca jurnalul nu corespunde checkpointului
+     */
+    public static Journal open(String fileName, FileSystemDirectory dummyNode, long checkpointInterval)
+        throws IOException
+    {
+        Journal journal = new Journal(fileName, dummyNode, checkpointInterval);
+        journal.recover();
+        return journal;
+    }
+
+    /**
+     * Reface sistemul de fisiere si deschide canalul jurnalului
+     *
+     * @throws IOException in cazul unei erori de citire/scriere
+     */
+    private void recover() throws IOException
+    {
+        epoch = 0;
+
+        if(Files.exists(checkpointPath))
+        {
+            try(DataInputStream input = new DataInputStream(
+                    new BufferedInputStream(Files.newInputStream(checkpointPath), 1 << 20)))
+            {
+                if(input.readInt() != CHECKPOINT_MAGIC)
+                {
+                    throw new IOException(checkpointPath + ": not a checkpoint");
+                }
+
+                epoch = input.readLong();
+                Main.setRoot(dummyNode, TreeSnapshot.load(input));
+            }
+        }
+
+        long validLength = Files.exists(journalPath) ? replay() : -1;
+
+        if(validLength < 0)
+        {
+            //nu exista jurnal pentru epoca checkpointului(sau este unul vechi), incepem unul nou
+            startJournal();
+        }
+        else
+        {
+            //grupul incomplet de la sfarsit(daca exista) este suprascris
+            channel = FileChannel.open(journalPath, StandardOpenOption.WRITE);
+            channel.truncate(validLength);
+            channel.position(validLength);
+        }
+    }
+
+    /**
+     * Reaplica grupurile valide din jurnal peste sistemul de fisiere
+     *
+     * @return lungimea partii valide a jurnalului, sau -1 daca jurnalul nu apartine epocii checkpointului
+     * @throws IOException in cazul unei erori de citire sau daca jurnalul nu corespunde checkpointului
+     */
+    private long replay() throws IOException
+    {
+        try(DataInputStream input = new DataInputStream(
+                new BufferedInputStream(Files.newInputStream(journalPath), 1 << 20)))
+        {
+            try
+            {
+                if(input.readInt() != JOURNAL_MAGIC || input.readLong() != epoch)
+                {
+                    return -1;
+                }
+            }
+            catch(EOFException ex)
+            {
+                return -1;
+            }
+
+            long fileLength = Files.size(journalPath);
+            long validLength = JOURNAL_HEADER_SIZE;
+            byte[] payload = new byte[BATCH_SIZE];
+
+            while(true)
+            {
+                int length;
+                int expectedChecksum;
+                try
+                {
+                    length = input.readInt();
+                    expectedChecksum = input.readInt();
+
+                    if(length < 0 || length > fileLength - validLength - BATCH_HEADER_SIZE)
+                    {
+                        //lungime corupta sau grup scris doar partial
+                        break;
+                    }
+                    if(length > payload.length)
+                    {
+                        payload = new byte[length];
+                    }
+
+                    input.readFully(payload, 0, length);
+                }
+                catch(EOFException ex)
+                {
+                    //grup scris doar partial
+                    break;
+                }
+
+                checksum.reset();
+                checksum.update(payload, 0, length);
+                if((int)checksum.getValue() != expectedChecksum)
+                {
+                    break;
+                }
+
+                applyBatch(payload, length);
+                validLength += BATCH_HEADER_SIZE + length;
+            }
+
+            return validLength;
+        }
+    }
+
+    /**
+     * Aplica inregistrarile dintr-un grup
+     *
+     * @param payload inregistrarile codificate
+     * @param length  numarul de octeti ai inregistrarilor
+     * @throws IOException daca o inregistrare nu corespunde starii sistemului de fisiere
+     */
+    private void applyBatch(byte[] payload, int length) throws IOException
+    {
+        DataInputStream input = new DataInputStream(new ByteArrayInputStream(payload, 0, length));
+        byte[] nameBuffer = new byte[256];
+
+        while(input.available() > 0)
+        {
+            int type = input.readUnsignedByte();
+
+            switch(type)
+            {
+                case MKDIR:
+                    resolveDirectory(input, nameBuffer).mkdir(TreeSnapshot.readName(input, nameBuffer));
+                    break;
+                case TOUCH:
+                    resolveDirectory(input, nameBuffer).touch(TreeSnapshot.readName(input, nameBuffer));
+                    break;
+                case RM:
+                {
+                    FileSystem node = resolve(input, nameBuffer);
+                    node.getNodeParent().remove(node);
+                    node.discard();
+                    break;
+                }
+                case CP:
+                {
+                    FileSystem sourceNode = resolve(input, nameBuffer);
+                    resolveDirectory(input, nameBuffer).cp(sourceNode);
+                    break;
+                }
+                case MV:
+                {
+                    FileSystem sourceNode = resolve(input, nameBuffer);
+                    resolveDirectory(input, nameBuffer).mv(sourceNode);
+                    break;
+                }
+                case CD:
+                    resolveDirectory(input, nameBuffer).cd();
+                    break;
+                default:
+                    throw new IOException(journalPath + ": invalid record type " + type);
+            }
+
+            replayedRecords++;
+        }
+    }
+
+    /**
+     * Citeste o cale si intoarce nodul corespunzator
+     *
+     * @param input      fluxul din care se citeste
+     * @param nameBuffer buffer refolosit pentru octetii numelor
+     * @return nodul
+     * @throws IOException daca nodul nu exista
+     */
+    private FileSystem resolve(DataInputStream input, byte[] nameBuffer) throws IOException
+    {
+        int count = TreeSnapshot.readCount(input);
+        FileSystem node = dummyNode.getChild("/");
+
+        for(int i = 0; i < count; i++)
+        {
+            node = (node instanceof FileSystemDirectory) ? node.getChild(TreeSnapshot.readName(input, nameBuffer)) : null;
+
+            if(node == null)
+            {
+                throw new IOException(journalPath + ": journal does not match checkpoint");
+            }
+        }
+
+        return node;
+    }
+
+    /**
+     * Citeste o cale si intoarce folderul corespunzator
+     *
+     * @param input      fluxul din care se citeste
+     * @param nameBuffer buffer refolosit pentru octetii numelor
+     * @return folderul
+     * @throws IOException daca folderul nu exista
+     */
+    private FileSystemDirectory resolveDirectory(DataInputStream input, byte[] nameBuffer) throws IOException
+    {
+        FileSystem node = resolve(input, nameBuffer);
+
+        if(!(node instanceof FileSystemDirectory))
+        {
+            throw new IOException(journalPath + ": journal does not match checkpoint");
+        }
+
+        return (FileSystemDirectory)node;
+    }
+
+    /**
+     * Incepe un jurnal gol pentru epoca curenta
+     * Antetul este scris intr-un fisier temporar care inlocuieste apoi atomic jurnalul vechi
+     *
+     * @throws IOException in cazul unei erori de scriere
+     */
+    private void startJournal() throws IOException
+    {
+        Path temporaryPath = Paths.get(journalPath + ".tmp");
+
+        try(FileChannel temporary = FileChannel.open(temporaryPath, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE))
+        {
+            ByteBuffer header = ByteBuffer.allocate(JOURNAL_HEADER_SIZE);
+            header.putInt(JOURNAL_MAGIC).putLong(epoch).flip();
+
+            while(header.hasRemaining())
+            {
+                temporary.write(header);
+            }
+            temporary.force(true);
+        }
+
+        Files.move(temporaryPath, journalPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        channel = FileChannel.open(journalPath, StandardOpenOption.WRITE);
+        channel.position(JOURNAL_HEADER_SIZE);
+    }
+
+    /**
+     * Scrie grupul curent daca prima lui inregistrare asteapta de cel putin MAX_COMMIT_DELAY_NANOS
+     * Este apelata intre comenzi, astfel modificarile unei comenzi sunt scrise in acelasi grup
+     */
+    public void commitIfDue()
+    {
+        if(batchLength > BATCH_HEADER_SIZE && System.nanoTime() - batchStartNanos >= MAX_COMMIT_DELAY_NANOS)
+        {
+            try
+            {
+                commit();
+            }
+            catch(IOException ex)
+            {
+                fail(ex);
+            }
+        }
+    }
+
+    /**
+     * Face un checkpoint daca de la ultimul checkpoint au fost scrise suficiente inregistrari
+     * Este apelata intre comenzi, cand toate modificarile inregistrate au fost deja aplicate
+     */
+    public void checkpointIfDue()
+    {
+        if(checkpointRequested || recordsSinceCheckpoint >= checkpointInterval)
+        {
+            checkpoint();
+        }
+    }
+
+    /**
+     * Salveaza arborele intr-un nou checkpoint si incepe un jurnal gol
+     * Checkpointul este scris intr-un fisier temporar care inlocuieste apoi atomic checkpointul vechi;
+     * pana cand noul jurnal inlocuieste jurnalul vechi, acesta din urma are o epoca mai veche si este ignorat
+     */
+    public void checkpoint()
+    {
+        if(failed)
+        {
+            return;
+        }
+
+        try
+        {
+            commit();
+
+            Path temporaryPath = Paths.get(checkpointPath + ".tmp");
+            try(FileChannel temporary = FileChannel.open(temporaryPath, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE))
+            {
+                DataOutputStream output = new DataOutputStream(
+                    new BufferedOutputStream(Channels.newOutputStream(temporary), 1 << 20));
+
+                output.writeInt(CHECKPOINT_MAGIC);
+                output.writeLong(epoch + 1);
+                TreeSnapshot.save((FileSystemDirectory)dummyNode.getChild("/"), output);
+                output.flush();
+                temporary.force(true);
+            }
+
+            Files.move(temporaryPath, checkpointPath, StandardCopyOption.REPLACE_EXISTING,
+                       StandardCopyOption.ATOMIC_MOVE);
+
+            channel.close();
+            epoch++;
+            startJournal();
+
+            checkpoints++;
+            recordsSinceCheckpoint = 0;
+            checkpointRequested = false;
+
+            //directorul curent nu face parte din snapshot, este prima inregistrare din noul jurnal
+            recordCd(FileSystem.getCurrentDirectory());
+        }
+        catch(IOException ex)
+        {
+            fail(ex);
+        }
+    }
+
+    /**
+     * Inregistreaza crearea unui folder
+     *
+     * @param directory  folderul in care este creat
+     * @param folderName numele folderului creat
+     */
+    public void recordMkdir(FileSystem directory, String folderName)
+    {
+        if(!isAttached(directory))
+        {
+            return;
+        }
+
+        beginRecord(MKDIR);
+        writePath(directory, null);
+        writeName(folderName);
+        endRecord();
+    }
+
+    /**
+     * Inregistreaza crearea unui fisier
+     *
+     * @param directory folderul in care este creat
+     * @param fileName  numele fisierului creat
+     */
+    public void recordTouch(FileSystem directory, String fileName)
+    {
+        if(!isAttached(directory))
+        {
+            return;
+        }
+
+        beginRecord(TOUCH);
+        writePath(directory, null);
+        writeName(fileName);
+        endRecord();
+    }
+
+    /**
+     * Inregistreaza stergerea unui nod, dupa ce a fost facuta
+     *
+     * @param parent parintele nodului sters
+     * @param name   numele nodului sters
+     */
+    public void recordRm(FileSystem parent, String name)
+    {
+        if(!isAttached(parent))
+        {
+            return;
+        }
+
+        beginRecord(RM);
+        writePath(parent, name);
+        endRecord();
+    }
+
+    /**
+     * Inregistreaza copierea unui nod
+     *
+     * @param sourceNode    nodul copiat
+     * @param destDirectory folderul in care este copiat
+     */
+    public void recordCp(FileSystem sourceNode, FileSystem destDirectory)
+    {
+        if(!isAttached(destDirectory))
+        {
+            return;
+        }
+        if(!isAttached(sourceNode))
+        {
+            //copia unui nod dezlegat nu poate fi refacuta din jurnal
+            checkpointRequested = true;
+            return;
+        }
+
+        beginRecord(CP);
+        writePath(sourceNode, null);
+        writePath(destDirectory, null);
+        endRecord();
+    }
+
+    /**
+     * Inregistreaza mutarea unui nod, dupa ce a fost facuta
+     * Sursa este codificata prin vechiul parinte si numele ei, adica prin calea pe care o avea inainte de mutare
+     * O mutare care scoate nodul din arbore(in propriul subarbore sau peste un nod cu acelasi nume) este
+     * inregistrata ca o stergere
+     *
+     * @param sourceParent  vechiul parinte al nodului mutat
+     * @param sourceNode    nodul mutat
+     * @param destDirectory folderul in care este mutat
+     */
+    public void recordMv(FileSystem sourceParent, FileSystem sourceNode, FileSystem destDirectory)
+    {
+        boolean wasAttached = isAttached(sourceParent);
+        boolean attached = isAttached(sourceNode);
+
+        if(!wasAttached)
+        {
+            //un nod adus dintr-un subarbore dezlegat nu poate fi refacut din jurnal
+            checkpointRequested = attached;
+            return;
+        }
+
+        if(!attached)
+        {
+            recordRm(sourceParent, sourceNode.getName());
+            return;
+        }
+
+        beginRecord(MV);
+        writePath(sourceParent, sourceNode.getName());
+        writePath(destDirectory, null);
+        endRecord();
+    }
+
+    /**
+     * Inregistreaza schimbarea directorului curent
+     *
+     * @param directory noul director curent
+     */
+    public void recordCd(FileSystem directory)
+    {
+        if(!isAttached(directory))
+        {
+            //dupa o oprire, directorul curent ramane ultimul director din arbore
+            return;
+        }
+
+        beginRecord(CD);
+        writePath(directory, null);
+        endRecord();
+    }
+
+    /**
+     * Verifica daca se poate ajunge la un nod pornind din root
+     * Un nod sters sau mutat in propriul subarbore isi pastreaza parintele, dar nu mai apare printre nodurile lui
+     *
+     * @param node nodul
+     * @return true, daca nodul face parte din arbore
+     *         false, altfel
+     */
+    private boolean isAttached(FileSystem node)
+    {
+        FileSystem current = node;
+
+        for(FileSystem parent = current.getNodeParent(); parent != null; parent = current.getNodeParent())
+        {
+            if(parent.getChild(current.getName()) != current)
+            {
+                return false;
+            }
+
+            current = parent;
+        }
+
+        return current == dummyNode.getChild("/");
+    }
+
+    /**
+     * Incepe o inregistrare
+     *
+     * @param type tipul inregistrarii
+     */
+    private void beginRecord(int type)
+    {
+        if(batchLength == BATCH_HEADER_SIZE)
+        {
+            batchStartNanos = System.nanoTime();
+        }
+
+        ensureCapacity(1);
+        batch[batchLength++] = (byte)type;
+    }
+
+    /**
+     * Termina o inregistrare; grupul este scris daca a atins dimensiunea maxima
+     */
+    private void endRecord()
+    {
+        records++;
+        recordsSinceCheckpoint++;
+
+        if(batchLength >= BATCH_SIZE)
+        {
+            try
+            {
+                commit();
+            }
+            catch(IOException ex)
+            {
+                fail(ex);
+            }
+        }
+    }
+
+    /**
+     * Codifica calea unui nod: numele de sub root, de sus in jos
+     *
+     * @param node      nodul
+     * @param childName numele unui nod din folderul node, adaugat la sfarsitul caii(null daca nu exista)
+     */
+    private void writePath(FileSystem node, String childName)
+    {
+        int depth = 0;
+
+        for(FileSystem current = node; current.getNodeParent() != null; current = current.getNodeParent())
+        {
+            if(depth == pathNodes.length)
+            {
+                pathNodes = Arrays.copyOf(pathNodes, 2 * depth);
+            }
+
+            pathNodes[depth++] = current;
+        }
+
+        writeVarInt((childName != null) ? depth + 1 : depth);
+        for(int i = depth - 1; i >= 0; i--)
+        {
+            writeName(pathNodes[i].getName());
+            pathNodes[i] = null;
+        }
+
+        if(childName != null)
+        {
+            writeName(childName);
+        }
+    }
+
+    /**
+     * Codifica un nume(lungimea in octeti si octetii UTF-8)
+     *
+     * @param name numele
+     */
+    private void writeName(String name)
+    {
+        int length = name.length();
+        ensureCapacity(5 + 3 * length);
+
+        //numele ASCII sunt copiate direct, fara un tablou intermediar
+        int start = batchLength;
+        writeVarInt(length);
+        int position = batchLength;
+
+        for(int i = 0; i < length; i++)
+        {
+            char c = name.charAt(i);
+            if(c >= 0x80)
+            {
+                byte[] encoded = name.getBytes(StandardCharsets.UTF_8);
+                batchLength = start;
+                writeVarInt(encoded.length);
+                System.arraycopy(encoded, 0, batch, batchLength, encoded.length);
+                batchLength += encoded.length;
+                return;
+            }
+
+            batch[position++] = (byte)c;
+        }
+
+        batchLength = position;
+    }
+
+    /**
+     * Codifica un numar nenegativ, cate 7 biti pe octet
+     *
+     * @param value numarul
+     */
+    private void writeVarInt(int value)
+    {
+        ensureCapacity(5);
+
+        while((value & ~0x7F) != 0)
+        {
+            batch[batchLength++] = (byte)((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+
+        batch[batchLength++] = (byte)value;
+    }
+
+    /**
+     * Mareste bufferul grupului daca nu mai are loc pentru un numar de octeti
+     *
+     * @param count numarul de octeti
+     */
+    private void ensureCapacity(int count)
+    {
+        if(batchLength + count > batch.length)
+        {
+            batch = Arrays.copyOf(batch, Math.max(2 * batch.length, batchLength + count));
+        }
+    }
+
+    /**
+     * Scrie grupul curent la sfarsitul jurnalului si il sincronizeaza pe disc
+     *
+     * @throws IOException in cazul unei erori de scriere
+     */
+    private void commit() throws IOException
+    {
+        int length = batchLength - BATCH_HEADER_SIZE;
+        if(length == 0 || failed)
+        {
+            //dupa o eroare, inregistrarile sunt doar aruncate
+            batchLength = BATCH_HEADER_SIZE;
+            return;
+        }
+
+        long start = System.nanoTime();
+
+        checksum.reset();
+        checksum.update(batch, BATCH_HEADER_SIZE, length);
+
+        ByteBuffer buffer = ByteBuffer.wrap(batch, 0, batchLength);
+        buffer.putInt(0, length);
+        buffer.putInt(4, (int)checksum.getValue());
+
+        while(buffer.hasRemaining())
+        {
+            channel.write(buffer);
+        }
+        channel.force(false);
+
+        batches++;
+        bytes += batchLength;
+        batchLength = BATCH_HEADER_SIZE;
+        commitNanos += System.nanoTime() - start;
+    }
+
+    /**
+     * Opreste jurnalizarea dupa o eroare de scriere
+     *
+     * @param ex eroarea
+     */
+    private void fail(IOException ex)
+    {
+        failed = true;
+        System.err.println("journal: " + ex.getMessage());
+    }
+
+    /**
+     * Scrie inregistrarile ramase si inchide jurnalul
+     */
+    public void close()
+    {
+        try
+        {
+            commit();
+            channel.close();
+        }
+        catch(IOException ex)
+        {
+            fail(ex);
+        }
+    }
+
+    /**
+     * Intoarce statisticile jurnalului, pentru --stats
+     *
+     * @return statisticile ca string
+     */
+    public String getStats()
+    {
+        return "journal: " + records + " records in " + batches + " batches(" + bytes + " bytes, "
+               + (commitNanos / 1000000) + " ms writing), " + checkpoints + " checkpoints, "
+               + replayedRecords + " records replayed";
+    }
+}
@@ -0,0 +1,45 @@
+import java.util.regex.Pattern;
+
+/**
+ * O expresie regulata compilata abia la prima folosire(prin PatternCache) si pastrata apoi
+ * Este retinuta de comenzile parsate, astfel comenzile construite din aceeasi linie nu mai cauta patternul
+ */
+public class LazyPattern
+{
+    /**
+     * Expresia regulata
+     */
+    private String regex;
+    /**
+     * Patternul compilat(null pana la prima folosire)
+     */
+    private volatile Pattern pattern;
+
+    /**
+     * Construieste un obiect de tip LazyPattern
+     *
+     * @param regex expresia regulata
+     */
+    public LazyPattern(String regex)
+    {
+        this.regex = regex;
+    }
+
+    /**
+     * Intoarce patternul compilat, compilandu-l la primul apel
+     *
+     * @return patternul compilat
+     */
+    public Pattern getPattern()
+    {
+        Pattern compiled = pattern;
+
+        if(compiled == null)
+        {
+            compiled = PatternCache.getPattern(regex);
+            pattern = compiled;
+        }
+
+        return compiled;
+    }
+}
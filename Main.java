@@ -4,139 +4,407 @@ import java.util.*;
 public class Main
 {
     /**
-     * Obiect de tipul PrintWriter folosit pentru a scrie fisierul de output
+     * Threadul de scriere asincrona folosit de fisierele de output si de erori
      */
-    public static PrintWriter outputFileWriter;
+    public static AsyncOutput asyncOutput;
     /**
-     * Obiect de tipul PrintWriter folosit pentru a scrie fisierul de erori
+     * Jurnalul modificarilor(null daca programul nu a primit --journal)
      */
-    public static PrintWriter errorFileWriter;
+    public static Journal journal;
+
+    /**
+     * Construieste un sistem de fisiere gol si seteaza root drept director curent
+     *
+     * @return nodul dummy care contine root
+     */
+    public static FileSystemDirectory createFileSystem()
+    {
+        /*
+            root este radacina sistemului de fisiere
+            dummyNode este un nod folosit pe post de "santinela", astfel
+            putem sa lucram cu root la fel cum lucram cu orice alt nod
+         */
+        FileSystemDirectory dummyNode = new FileSystemDirectory("/");
+        setRoot(dummyNode, new FileSystemDirectory("/"));
+
+        return dummyNode;
+    }
+
     /**
-     * Indexul comenzii curente
+     * Seteaza root-ul unui sistem de fisiere(inlocuind root-ul vechi, daca exista) si il face director curent
+     *
+     * @param dummyNode nodul dummy al sistemului de fisiere
+     * @param root      noul root
      */
-    public static int currentCommandIndex = 0;
+    public static void setRoot(FileSystemDirectory dummyNode, FileSystemDirectory root)
+    {
+        FileSystem oldRoot = dummyNode.getChild("/");
+        if(oldRoot != null)
+        {
+            dummyNode.remove(oldRoot);
+        }
+
+        dummyNode.add(root);
+        root.setNodeParent(null); // root nu are parinte
+        FileSystem.setCurrentDirectory(root); //root este directorul curent by default
+    }
 
     /**
-     * Sterge spatiile de la finalul liniilor dintr-un fisier
+     * Executa toate comenzile dintr-un script peste un sistem de fisiere
+     * Rezultatele sunt scrise in fisierele sesiunii threadului curent, care trebuie sa fie deja deschise
      *
-     * @param fileToFix numele fisierul
+     * @param scriptReader cititorul scriptului
+     * @param dummyNode    nodul dummy care contine root-ul sistemului de fisiere
      */
-    public static void fixLineEndings(String fileToFix)
+    public static void runScript(ScriptReader scriptReader, FileSystemDirectory dummyNode)
     {
+        CommandFactory commandFactory = CommandFactory.getInstance();
+        Session session = Session.current();
+        session.resetCommandIndex();
+
         try
         {
-            //creeaza un fisier temporar
-            outputFileWriter = new PrintWriter("tempfile.txt");
+            while(scriptReader.nextLine())
+            {
+                int commandIndex = session.nextCommandIndex();
+                Session.error().println(commandIndex);
+                Session.output().println(commandIndex);
+
+                //Linia este parsata doar daca nu a mai aparut(si nu a fost scoasa din cache)
+                Command commandToExecute = commandFactory.createCommand(dummyNode, scriptReader.getLine(),
+                                                                        scriptReader.getLineLength());
+
+                CommandInvoker commandInvoker = new CommandInvoker();
+                commandInvoker.setCommand(commandToExecute); //seteaza comanda ce trebuie apelata
+                commandInvoker.invokeCommand();
+
+                if(journal != null)
+                {
+                    journal.commitIfDue();
+                    journal.checkpointIfDue();
+                }
+            }
+        }
+        catch(IOException ex)
+        {
+            //la fel ca Scanner, o eroare de citire este tratata ca sfarsitul scriptului
         }
-        catch(FileNotFoundException ex)
+    }
+
+    /**
+     * Afiseaza la stderr statisticile cache-ului de comenzi parsate
+     */
+    public static void printStats()
+    {
+        ParsedCommandCache cache = CommandFactory.getInstance().getParsedCommandCache();
+        System.err.println("parsed command cache: " + cache.getHits() + " hits, " + cache.getMisses() + " misses");
+
+        if(journal != null)
         {
+            System.err.println(journal.getStats());
+        }
+    }
+
+    /**
+     * Executa in paralel scripturile dintr-o lista de sesiuni, peste un sistem de fisiere comun,
+     * si afiseaza la stderr debitul obtinut
+     *
+     * @param sessionsFile fisierul cu lista de sesiuni
+     * @param loadFile     snapshotul incarcat inainte de scripturi(null daca nu exista)
+     * @param saveFile     fisierul in care este salvat sistemul de fisiere dupa scripturi(null daca nu exista)
+     * @param useJournal   true daca programul a primit si --journal
+     * @param printStats   true daca trebuie afisate si statisticile cache-urilor de comenzi parsate
+     */
+    private static void runSessions(String sessionsFile, String loadFile, String saveFile, boolean useJournal,
+                                    boolean printStats)
+    {
+        if(useJournal)
+        {
+            //jurnalul inregistreaza modificarile intr-o singura ordine, deci nu poate fi folosit de sesiuni paralele
+            System.err.println("sessions: --journal cannot be used with --sessions");
             return;
         }
 
-        //deschide fisierul de output
-        File outputFile = new File(fileToFix);
-        Scanner fileScanner;
+        ArrayList<String[]> sessions;
         try
         {
-            fileScanner = new Scanner(outputFile);
+            sessions = SessionExecutor.readSessionList(sessionsFile);
         }
-        catch(FileNotFoundException e)
+        catch(IOException ex)
         {
+            System.err.println("sessions: " + sessionsFile + ": " + ex.getMessage());
             return;
         }
 
-        while(fileScanner.hasNextLine())
+        FileSystemDirectory dummyNode = createFileSystem();
+        if(loadFile != null)
         {
-            //ia fiecare linie din fisierul de output, aplica trim si o scrie in fisierul temporar
-            String line = fileScanner.nextLine();
-
-            line = line.trim();
-            outputFileWriter.println(line);
+            try
+            {
+                setRoot(dummyNode, TreeSnapshot.load(loadFile));
+            }
+            catch(IOException ex)
+            {
+                System.err.println("load: " + loadFile + ": " + ex.getMessage());
+                return;
+            }
         }
 
-        fileScanner.close();
-        outputFileWriter.close();
-
-        //sterge fisierul original de output
-        outputFile.delete();
-
-        //redenumeste fisierul temporar in fisierul de output
-        File file = new File("tempfile.txt");
-        file.renameTo(new File(fileToFix));
+        SessionExecutor executor = new SessionExecutor(dummyNode);
+        executor.runAll(sessions);
+        System.err.println(executor.getStats());
+        if(printStats)
+        {
+            System.err.println(executor.getCacheStats());
+        }
 
+        if(saveFile != null)
+        {
+            try
+            {
+                TreeSnapshot.save((FileSystemDirectory)dummyNode.getChild("/"), saveFile);
+            }
+            catch(IOException ex)
+            {
+                System.err.println("save: " + saveFile + ": " + ex.getMessage());
+            }
+        }
     }
 
+    /**
+     * Argumentele programului: optiunile(care incep cu --) pot sa apara oriunde,
+     * restul argumentelor sunt fisierul de intrare, fisierul de output si fisierul de erori
+     *
+     * --mmap          scriptul de intrare este mapat in memorie(MappedScriptReader) in loc sa fie citit printr-un flux
+     * --stats         la final, afiseaza la stderr numarul de hituri/missuri din cache-ul comenzilor parsate
+     * --parallel      operatiile care parcurg subarbori mari(ls -R, expandarea *, copierea completa) sunt executate
+     *                 in paralel(ParallelTasks)
+     * --daemon port   porneste un ScriptServer pe portul dat(nu primeste fisiere); clientii sunt tratati in paralel,
+     *                 dar scripturile trimise pe acelasi sistem de fisiere sunt executate pe rand
+     * --client port   trimite scriptul unui ScriptServer si scrie raspunsul in fisierele de output si de erori
+     * --tree nume     (impreuna cu --client) sistemul de fisiere din server pe care se executa scriptul
+     * --load fisier   inainte de script, incarca sistemul de fisiere dintr-un snapshot(TreeSnapshot)
+     * --save fisier   dupa script, salveaza sistemul de fisiere intr-un snapshot
+     * --journal fisier  sistemul de fisiere este refacut din jurnal(si checkpointul lui), iar modificarile
+     *                   facute de script sunt adaugate in jurnal
+     * --checkpoint n    (impreuna cu --journal) numarul de modificari dupa care este facut un checkpoint
+     * --sessions fisier executa in paralel scripturile din lista(cate o linie intrare output erori pentru fiecare),
+     *                   peste acelasi sistem de fisiere(SessionExecutor); nu primeste alte fisiere
+     *
+     * @param args argumentele din linia de comanda
+     */
     public static void main(String[] args)
     {
-        if(args.length != 3)
+        boolean mapInput = false;
+        boolean printStats = false;
+        int daemonPort = -1;
+        int clientPort = -1;
+        String treeName = ScriptServer.DEFAULT_TREE;
+        String loadFile = null;
+        String saveFile = null;
+        String journalFile = null;
+        String sessionsFile = null;
+        long checkpointInterval = Journal.DEFAULT_CHECKPOINT_INTERVAL;
+        ArrayList<String> fileNames = new ArrayList<>();
+
+        for(int i = 0; i < args.length; i++)
         {
-            return;
+            String arg = args[i];
+
+            if(arg.equals("--mmap"))
+            {
+                mapInput = true;
+            }
+            else if(arg.equals("--stats"))
+            {
+                printStats = true;
+            }
+            else if(arg.equals("--parallel"))
+            {
+                ParallelTasks.enable();
+            }
+            else if(arg.equals("--daemon") && i + 1 < args.length)
+            {
+                daemonPort = Integer.parseInt(args[++i]);
+            }
+            else if(arg.equals("--client") && i + 1 < args.length)
+            {
+                clientPort = Integer.parseInt(args[++i]);
+            }
+            else if(arg.equals("--tree") && i + 1 < args.length)
+            {
+                treeName = args[++i];
+            }
+            else if(arg.equals("--load") && i + 1 < args.length)
+            {
+                loadFile = args[++i];
+            }
+            else if(arg.equals("--save") && i + 1 < args.length)
+            {
+                saveFile = args[++i];
+            }
+            else if(arg.equals("--journal") && i + 1 < args.length)
+            {
+                journalFile = args[++i];
+            }
+            else if(arg.equals("--checkpoint") && i + 1 < args.length)
+            {
+                checkpointInterval = Long.parseLong(args[++i]);
+            }
+            else if(arg.equals("--sessions") && i + 1 < args.length)
+            {
+                sessionsFile = args[++i];
+            }
+            else
+            {
+                fileNames.add(arg);
+            }
         }
 
-        /*
-            root este radacina sistemului de fisiere
-            dummyNode este un nod folosit pe post de "santinela", astfel
-            putem sa lucram cu root la fel cum lucram cu orice alt nod
-         */
-        FileSystemDirectory dummyNode = new FileSystemDirectory("/");
-        FileSystemDirectory root = new FileSystemDirectory("/");
-        dummyNode.add(root);
-        root.setNodeParent(null); // root nu are parinte
-        FileSystem.setCurrentDirectory(root); //root este directorul curent by default
+        if(daemonPort >= 0)
+        {
+            try
+            {
+                new ScriptServer(daemonPort).serve();
+            }
+            catch(IOException ex)
+            {
+                System.err.println("daemon: " + ex.getMessage());
+            }
 
-        File inputFile = new File(args[0]);
+            if(printStats)
+            {
+                printStats();
+            }
+            return;
+        }
 
-        try
+        if(sessionsFile != null)
         {
-            outputFileWriter = new PrintWriter(args[1]);
-            errorFileWriter  = new PrintWriter(args[2]);
+            //cache-urile comenzilor parsate sunt ale threadurilor sesiunilor, deci statisticile sunt afisate de runSessions
+            runSessions(sessionsFile, loadFile, saveFile, journalFile != null, printStats);
+            return;
         }
-        catch(FileNotFoundException ex)
+
+        if(fileNames.size() != 3)
         {
             return;
         }
 
-        Scanner fileScanner;
-        try
+        if(clientPort >= 0)
         {
-            fileScanner = new Scanner(inputFile);
+            try
+            {
+                if(!ScriptClient.run(clientPort, treeName, fileNames.get(0), fileNames.get(1), fileNames.get(2)))
+                {
+                    //la fel ca o rulare separata oprita de o exceptie
+                    System.exit(1);
+                }
+            }
+            catch(IOException ex)
+            {
+                System.err.println("client: " + ex.getMessage());
+            }
+            return;
         }
-        catch(FileNotFoundException e)
+
+        FileSystemDirectory dummyNode = createFileSystem();
+        if(journalFile != null)
         {
-            return;
+            try
+            {
+                journal = Journal.open(journalFile, dummyNode, checkpointInterval);
+            }
+            catch(IOException ex)
+            {
+                System.err.println("journal: " + ex.getMessage());
+                return;
+            }
         }
 
-        while(fileScanner.hasNextLine())
+        if(loadFile != null)
         {
-            currentCommandIndex++;
-            Main.errorFileWriter.println(Main.currentCommandIndex);
-            Main.outputFileWriter.println(Main.currentCommandIndex);
+            try
+            {
+                setRoot(dummyNode, TreeSnapshot.load(loadFile));
+            }
+            catch(IOException ex)
+            {
+                System.err.println("load: " + loadFile + ": " + ex.getMessage());
+                return;
+            }
 
-            String line = fileScanner.nextLine();
-            Scanner stringScanner = new Scanner(line);
+            //arborele incarcat inlocuieste starea refacuta din jurnal
+            if(journal != null)
+            {
+                journal.checkpoint();
+            }
+        }
 
-            CommandFactory commandFactory = CommandFactory.getInstance();
-            Command commandToExecute = null;
+        /*
+            Textul scris in cele doua fisiere este codificat in buffere mari, scrise de un thread separat
+            Fiecare fisier este scris in ordinea in care au fost facute apelurile print
+         */
+        asyncOutput = new AsyncOutput();
+        try
+        {
+            PrintWriter outputFileWriter = new PrintWriter(asyncOutput.open(fileNames.get(1)));
+            PrintWriter errorFileWriter  = new PrintWriter(asyncOutput.open(fileNames.get(2)));
+            Session.current().setWriters(outputFileWriter, errorFileWriter);
+        }
+        catch(IOException ex)
+        {
+            asyncOutput.shutdown();
+            return;
+        }
 
-            //Verifica daca este o comanda normala(fara * in path - cu exceptia regex-urilor)
-            if(line.contains("*") && line.contains("grep") || !line.contains("*"))
+        ScriptReader scriptReader;
+        try
+        {
+            if(mapInput)
             {
-                commandToExecute = commandFactory.createCommand(dummyNode, stringScanner, true);
+                scriptReader = new MappedScriptReader(fileNames.get(0));
             }
             else
             {
-                commandToExecute = commandFactory.createStarCommand(dummyNode, stringScanner);
+                scriptReader = new ScriptReader(fileNames.get(0));
             }
+        }
+        catch(IOException e)
+        {
+            Session.output().close();
+            Session.error().close();
+            asyncOutput.shutdown();
+            return;
+        }
 
-            CommandInvoker commandInvoker = new CommandInvoker();
-            commandInvoker.setCommand(commandToExecute); //seteaza comanda ce trebuie apelata
-            commandInvoker.invokeCommand();
+        runScript(scriptReader, dummyNode);
+        scriptReader.close();
+
+        if(journal != null)
+        {
+            journal.close();
         }
 
-        outputFileWriter.close();
-        errorFileWriter.close();
+        if(saveFile != null)
+        {
+            try
+            {
+                TreeSnapshot.save((FileSystemDirectory)dummyNode.getChild("/"), saveFile);
+            }
+            catch(IOException ex)
+            {
+                System.err.println("save: " + saveFile + ": " + ex.getMessage());
+            }
+        }
+
+        Session.output().close();
+        Session.error().close();
+        asyncOutput.shutdown();
 
-        //Sterge spatiile de la finalul liniilor din fisierul de output
-        fixLineEndings(args[1]);
+        if(printStats)
+        {
+            printStats();
+        }
     }
 }
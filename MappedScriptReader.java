@@ -0,0 +1,81 @@
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Citeste scriptul de intrare direct din memorie, mapand fisierul in ferestre de dimensiune fixa
+ * Liniile sunt separate direct peste octetii mapati; o linie care trece peste granita dintre doua ferestre
+ * este continuata in fereastra urmatoare, la fel ca la trecerea intre doua citiri ale unui ScriptReader
+ */
+public class MappedScriptReader extends ScriptReader
+{
+    /**
+     * Dimensiunea maxima a unei ferestre mapate
+     */
+    private static final long WINDOW_SIZE = 1L << 26;
+
+    /**
+     * Canalul fisierului mapat
+     */
+    private FileChannel channel;
+    /**
+     * Dimensiunea fisierului
+     */
+    private long fileSize;
+    /**
+     * Pozitia din fisier de dupa ultima fereastra mapata
+     */
+    private long windowEnd = 0;
+
+    /**
+     * Construieste un obiect de tip MappedScriptReader peste un fisier
+     *
+     * @param fileName numele fisierului
+     * @throws IOException daca fisierul nu poate sa fie deschis
+     */
+    public MappedScriptReader(String fileName) throws IOException
+    {
+        channel = FileChannel.open(Paths.get(fileName), StandardOpenOption.READ);
+        fileSize = channel.size();
+    }
+
+    /**
+     * Mapeaza urmatoarea fereastra din fisier
+     * Fereastra anterioara nu mai este referita si este eliberata de garbage collector
+     *
+     * @return true, daca a fost mapata o fereastra
+     *         false, daca fisierul s-a terminat
+     * @throws IOException in cazul unei erori de mapare
+     */
+    protected boolean fill() throws IOException
+    {
+        if(windowEnd >= fileSize)
+        {
+            return false;
+        }
+
+        long size = Math.min(WINDOW_SIZE, fileSize - windowEnd);
+        buffer = channel.map(FileChannel.MapMode.READ_ONLY, windowEnd, size);
+        windowEnd += size;
+
+        position = 0;
+        limit = (int)size;
+        return true;
+    }
+
+    /**
+     * Inchide canalul fisierului mapat
+     */
+    public void close()
+    {
+        try
+        {
+            channel.close();
+        }
+        catch(IOException ex)
+        {
+            //fisierul este doar citit, nu avem ce pierde
+        }
+    }
+}
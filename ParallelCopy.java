@@ -0,0 +1,137 @@
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Implementarea paralela a copierii complete(nu lazy) a unui folder
+ * Fiecare task copiaza un subarbore: pentru fiecare folder construieste copiile nodurilor, in ordine,
+ * si le leaga in bloc de copia folderului(setChildren); cand exista threaduri libere, un subfolder
+ * este predat unui task nou
+ *
+ * Sursa este doar citita(copiile lazy nu sunt construite, este parcurs continutul sursei lor), iar fiecare
+ * folder nou este completat de un singur task, deci copia are aceleasi noduri, in aceeasi ordine, ca clone()
+ */
+public class ParallelCopy
+{
+    /**
+     * Un subfolder este predat unui task nou doar daca threadul curent are mai putine taskuri
+     * in asteptare decat atat; altfel este copiat direct de taskul curent
+     */
+    private static final int MAX_SURPLUS_TASKS = 2;
+
+    /**
+     * Constructorul este private, clasa contine doar metode statice
+     */
+    private ParallelCopy()
+    {
+
+    }
+
+    /**
+     * Copiaza un subarbore intr-un folder nou
+     */
+    private static class CopyTask extends RecursiveAction
+    {
+        /**
+         * Versiunea formatului serializat(taskurile nu sunt serializate, dar RecursiveAction este Serializable)
+         */
+        private static final long serialVersionUID = 1L;
+        /**
+         * Folderul copiat
+         */
+        private FileSystemDirectory source;
+        /**
+         * Copia folderului(noua si goala)
+         */
+        private FileSystemDirectory copy;
+
+        /**
+         * Construieste un obiect de tip CopyTask
+         *
+         * @param source folderul copiat
+         * @param copy   copia folderului
+         */
+        CopyTask(FileSystemDirectory source, FileSystemDirectory copy)
+        {
+            this.source = source;
+            this.copy = copy;
+        }
+
+        /**
+         * Copiaza subarborele cu o stiva explicita, la fel ca clone(), predand subfoldere altor taskuri
+         * cat timp exista threaduri libere, apoi asteapta terminarea lor
+         */
+        protected void compute()
+        {
+            ArrayList<CopyTask> subtasks = new ArrayList<>();
+
+            //perechi (folder sursa, copia lui) ale caror noduri nu au fost inca copiate de acest task
+            ArrayDeque<FileSystemDirectory> sources = new ArrayDeque<>();
+            ArrayDeque<FileSystemDirectory> copies = new ArrayDeque<>();
+            sources.push(source);
+            copies.push(copy);
+
+            ArrayList<FileSystem> children = new ArrayList<>();
+            while(!sources.isEmpty())
+            {
+                FileSystemDirectory sourceDirectory = sources.pop();
+                FileSystemDirectory directoryCopy = copies.pop();
+
+                children.clear();
+                Iterator<FileSystem> iter = sourceDirectory.createReadOnlyIterator();
+                while(iter.hasNext())
+                {
+                    FileSystem node = iter.next();
+
+                    if(node instanceof FileSystemDirectory)
+                    {
+                        FileSystemDirectory childCopy = new FileSystemDirectory(node.getName());
+
+                        if(getSurplusQueuedTaskCount() < MAX_SURPLUS_TASKS)
+                        {
+                            CopyTask subtask = new CopyTask((FileSystemDirectory)node, childCopy);
+                            subtask.fork();
+                            subtasks.add(subtask);
+                        }
+                        else
+                        {
+                            sources.push((FileSystemDirectory)node);
+                            copies.push(childCopy);
+                        }
+
+                        children.add(childCopy);
+                    }
+                    else
+                    {
+                        children.add(node.copy());
+                    }
+                }
+
+                //nodurile sursei sunt in ordine lexicografica, deci si copiile lor sunt
+                FileSystem[] sortedChildren = children.toArray(new FileSystem[0]);
+                directoryCopy.setChildren(new SortedChildren(sortedChildren, sortedChildren.length));
+            }
+
+            for(CopyTask subtask : subtasks)
+            {
+                subtask.join();
+            }
+        }
+    }
+
+    /**
+     * Construieste o copie completa a unui folder, in paralel
+     * Copia nu are parinte, ea trebuie adaugata in sistemul de fisiere
+     *
+     * @param source folderul copiat
+     * @return copia folderului
+     */
+    public static FileSystemDirectory copy(FileSystemDirectory source)
+    {
+        FileSystemDirectory newDirectory = new FileSystemDirectory(source.getName());
+        ParallelTasks.pool().invoke(new CopyTask(source, newDirectory));
+
+        return newDirectory;
+    }
+}
@@ -0,0 +1,195 @@
+import java.io.PrintWriter;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Implementarea paralela a comenzii ls -R
+ * Fiecare task listeaza un subarbore in preordine, intr-un buffer propriu; cand exista threaduri libere,
+ * un subfolder este predat unui task nou, iar locul lui in preordine este retinut in lista de bucati a taskului
+ * Bucatile sunt apoi scrise in ordine de threadul care a primit comanda, deci outputul este identic cu cel al
+ * variantei secventiale(recursiveLS)
+ *
+ * Taskurile doar citesc arborele: copiile lazy nu sunt construite(este parcurs continutul sursei lor),
+ * iar caile sunt construite din prefixul parintelui(cu aceleasi reguli ca getPath: pathOf, childPrefix),
+ * fara a modifica caile salvate in noduri; fiecare folder este formatat de FileSystemDirectory.appendListing
+ */
+public class ParallelListing
+{
+    /**
+     * Un subfolder este predat unui task nou doar daca threadul curent are mai putine taskuri
+     * in asteptare decat atat; altfel este listat direct, in bufferul taskului curent
+     */
+    private static final int MAX_SURPLUS_TASKS = 2;
+
+    /**
+     * Constructorul este private, clasa contine doar metode statice
+     */
+    private ParallelListing()
+    {
+
+    }
+
+    /**
+     * Listeaza un subarbore in preordine
+     * Rezultatul este o coada de bucati: texte deja formatate si taskuri(pentru subarborii predati altor threaduri)
+     */
+    private static class ListingTask extends RecursiveAction
+    {
+        /**
+         * Versiunea formatului serializat(taskurile nu sunt serializate, dar RecursiveAction este Serializable)
+         */
+        private static final long serialVersionUID = 1L;
+
+        /**
+         * Folderul de la care porneste listarea
+         */
+        private FileSystemDirectory directory;
+        /**
+         * Prefixul folderului(calea parintelui lui urmata de /, ca in getPath)
+         */
+        private String prefix;
+        /**
+         * Comanda grep din care fiecare task isi face propria copie(null daca ls nu are grep)
+         */
+        private Command grepTemplate;
+        /**
+         * Bucatile outputului, in ordinea in care trebuie scrise(StringBuilder sau ListingTask)
+         */
+        private ArrayDeque<Object> parts = new ArrayDeque<>();
+
+        /**
+         * Construieste un obiect de tip ListingTask
+         *
+         * @param directory    folderul de la care porneste listarea
+         * @param prefix       prefixul folderului
+         * @param grepTemplate comanda grep(poate sa fie null)
+         */
+        ListingTask(FileSystemDirectory directory, String prefix, Command grepTemplate)
+        {
+            this.directory = directory;
+            this.prefix = prefix;
+            this.grepTemplate = grepTemplate;
+        }
+
+        /**
+         * Parcurge subarborele in preordine, la fel ca recursiveLS, listand fiecare folder atins
+         */
+        protected void compute()
+        {
+            //Matcher-ul nu poate fi folosit de mai multe threaduri, deci fiecare task are propria comanda
+            Command grep = FileSystemDirectory.copyGrep(grepTemplate);
+
+            StringBuilder text = new StringBuilder();
+            ArrayDeque<Iterator<FileSystem>> iteratorsStack = new ArrayDeque<>();
+            ArrayDeque<String> prefixesStack = new ArrayDeque<>();
+
+            appendListing(directory, prefix, grep, text);
+            iteratorsStack.push(directory.createReadOnlyIterator());
+            prefixesStack.push(FileSystem.childPrefix(prefix, directory.getName()));
+
+            while(!iteratorsStack.isEmpty())
+            {
+                Iterator<FileSystem> iter = iteratorsStack.peek();
+
+                if(!iter.hasNext())
+                {
+                    iteratorsStack.pop();
+                    prefixesStack.pop();
+                    continue;
+                }
+
+                FileSystem node = iter.next();
+                if(!(node instanceof FileSystemDirectory))
+                {
+                    continue;
+                }
+
+                FileSystemDirectory childDirectory = (FileSystemDirectory)node;
+                String nodePrefix = prefixesStack.peek();
+
+                if(getSurplusQueuedTaskCount() < MAX_SURPLUS_TASKS)
+                {
+                    //subarborele este listat de alt task; bucata lui este scrisa intre textul de pana acum si cel de dupa
+                    ListingTask subtask = new ListingTask(childDirectory, nodePrefix, grepTemplate);
+                    subtask.fork();
+
+                    if(text.length() > 0)
+                    {
+                        parts.add(text);
+                        text = new StringBuilder();
+                    }
+                    parts.add(subtask);
+                }
+                else
+                {
+                    appendListing(childDirectory, nodePrefix, grep, text);
+                    iteratorsStack.push(childDirectory.createReadOnlyIterator());
+                    prefixesStack.push(FileSystem.childPrefix(nodePrefix, childDirectory.getName()));
+                }
+            }
+
+            if(text.length() > 0)
+            {
+                parts.add(text);
+            }
+        }
+    }
+
+    /**
+     * Formateaza listarea unui singur folder, cu formatterul lui FileSystemDirectory.ls
+     *
+     * @param directory folderul
+     * @param prefix    prefixul folderului
+     * @param grep      comanda grep a taskului(poate sa fie null)
+     * @param text      bufferul in care se scrie listarea
+     */
+    private static void appendListing(FileSystemDirectory directory, String prefix, Command grep, StringBuilder text)
+    {
+        String name = directory.getName();
+        FileSystemDirectory.appendListing(FileSystem.pathOf(prefix, name), directory.createReadOnlyIterator(),
+                                          FileSystem.childPrefix(prefix, name), grep, text);
+    }
+
+    /**
+     * Listeaza recursiv continutul unui folder, in paralel
+     * Outputul este identic cu cel al lui recursiveLS
+     *
+     * @param directory   folderul
+     * @param grepCommand comanda grep(poate sa fie null)
+     * @param output      fisierul in care se scrie listarea
+     */
+    public static void recursiveLS(FileSystemDirectory directory, Command grepCommand, PrintWriter output)
+    {
+        ListingTask rootTask = new ListingTask(directory, directory.getPrefix(), grepCommand);
+        ParallelTasks.pool().invoke(rootTask);
+
+        /*
+            Bucatile sunt scrise in preordine: cand intalnim un task, asteptam terminarea lui si ii scriem bucatile
+            inainte de a continua cu bucatile taskului parinte
+            Bucatile sunt scoase din cozi pe masura ce sunt scrise, deci textul deja scris poate fi eliberat
+         */
+        ArrayDeque<ArrayDeque<Object>> partsStack = new ArrayDeque<>();
+        partsStack.push(rootTask.parts);
+
+        while(!partsStack.isEmpty())
+        {
+            Object part = partsStack.peek().poll();
+
+            if(part == null)
+            {
+                partsStack.pop();
+            }
+            else if(part instanceof StringBuilder)
+            {
+                output.append((StringBuilder)part);
+            }
+            else
+            {
+                ListingTask subtask = (ListingTask)part;
+                subtask.join();
+                partsStack.push(subtask.parts);
+            }
+        }
+    }
+}
@@ -0,0 +1,51 @@
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Modul paralel al operatiilor care parcurg subarbori mari(ls -R, expandarea caii cu *, copierea completa)
+ * Cand este activat, aceste operatii sunt impartite in taskuri executate de un ForkJoinPool,
+ * iar rezultatul lor ramane identic cu cel al variantei secventiale
+ */
+public class ParallelTasks
+{
+    /**
+     * true daca operatiile mari sunt executate in paralel
+     * Este setat inainte de executia scripturilor, deci nu trebuie sa fie volatile
+     */
+    private static boolean enabled = false;
+
+    /**
+     * Constructorul este private, clasa contine doar metode statice
+     */
+    private ParallelTasks()
+    {
+
+    }
+
+    /**
+     * Activeaza modul paralel; trebuie apelata inainte de executia scripturilor
+     */
+    public static void enable()
+    {
+        enabled = true;
+    }
+
+    /**
+     * Verifica daca modul paralel este activat
+     *
+     * @return true, daca operatiile mari sunt executate in paralel
+     */
+    public static boolean isEnabled()
+    {
+        return enabled;
+    }
+
+    /**
+     * Intoarce poolul in care sunt executate taskurile
+     *
+     * @return poolul comun al JVM-ului(are cate un thread pentru fiecare procesor)
+     */
+    public static ForkJoinPool pool()
+    {
+        return ForkJoinPool.commonPool();
+    }
+}
@@ -0,0 +1,129 @@
+/**
+ * Forma parsata(dar nerezolvata) a unei linii din script
+ * Contine tipul comenzii, optiunile, argumentele si patternurile grep/* compilate, dar nicio referinta catre
+ * noduri, astfel aceeasi forma parsata poate fi folosita pentru a construi comanda oricand apare linia
+ */
+public class ParsedCommand
+{
+    /**
+     * Tipul comenzii(null daca linia nu contine o comanda cunoscuta)
+     */
+    private CommandType commandType;
+    /**
+     * true daca argumentul comenzii este o cale cu *
+     */
+    private boolean star;
+    /**
+     * true daca ls este recursiva(-R)
+     */
+    private boolean recursive;
+    /**
+     * Primul argument(calea pentru ls/cd/rm/touch/mkdir, sursa pentru cp/mv)
+     */
+    private String firstArgument;
+    /**
+     * Al doilea argument(destinatia pentru cp/mv)
+     */
+    private String secondArgument;
+    /**
+     * Patternul grep folosit prin pipe cu ls(null daca nu exista)
+     */
+    private LazyPattern grepPattern;
+    /**
+     * Calea cu * compilata(pentru touch/mkdir este calea directoarelor, fara numele nodului creat)
+     */
+    private StarPath starPath;
+
+    /**
+     * Construieste un obiect de tip ParsedCommand
+     *
+     * @param commandType    tipul comenzii(null daca nu este cunoscut)
+     * @param star           true daca argumentul este o cale cu *
+     * @param recursive      true daca ls este recursiva
+     * @param firstArgument  primul argument(poate sa fie null)
+     * @param secondArgument al doilea argument(poate sa fie null)
+     * @param grepPattern    patternul grep(poate sa fie null)
+     * @param starPath       calea cu * compilata(poate sa fie null)
+     */
+    public ParsedCommand(CommandType commandType, boolean star, boolean recursive, String firstArgument,
+                         String secondArgument, LazyPattern grepPattern, StarPath starPath)
+    {
+        this.commandType    = commandType;
+        this.star           = star;
+        this.recursive      = recursive;
+        this.firstArgument  = firstArgument;
+        this.secondArgument = secondArgument;
+        this.grepPattern    = grepPattern;
+        this.starPath       = starPath;
+    }
+
+    /**
+     * Intoarce tipul comenzii
+     *
+     * @return tipul comenzii(null daca nu este cunoscut)
+     */
+    public CommandType getCommandType()
+    {
+        return commandType;
+    }
+
+    /**
+     * Verifica daca argumentul comenzii este o cale cu *
+     *
+     * @return true, daca argumentul contine *
+     */
+    public boolean isStar()
+    {
+        return star;
+    }
+
+    /**
+     * Verifica daca ls este recursiva
+     *
+     * @return true, daca ls a primit -R
+     */
+    public boolean isRecursive()
+    {
+        return recursive;
+    }
+
+    /**
+     * Intoarce primul argument al comenzii
+     *
+     * @return argumentul ca string
+     */
+    public String getFirstArgument()
+    {
+        return firstArgument;
+    }
+
+    /**
+     * Intoarce al doilea argument al comenzii
+     *
+     * @return argumentul ca string
+     */
+    public String getSecondArgument()
+    {
+        return secondArgument;
+    }
+
+    /**
+     * Intoarce patternul grep folosit prin pipe cu ls
+     *
+     * @return patternul(null daca nu exista)
+     */
+    public LazyPattern getGrepPattern()
+    {
+        return grepPattern;
+    }
+
+    /**
+     * Intoarce calea cu * compilata
+     *
+     * @return calea compilata(null daca argumentul nu contine *)
+     */
+    public StarPath getStarPath()
+    {
+        return starPath;
+    }
+}
@@ -0,0 +1,119 @@
+/**
+ * Cache de dimensiune fixa pentru formele parsate ale liniilor din script, indexat dupa continutul liniei
+ * Fiecare linie are un singur loc posibil in cache(direct-mapped, dupa hash-ul caracterelor); o linie noua
+ * inlocuieste linia aflata pe locul ei. Cautarea nu aloca nimic: linia este comparata direct cu bufferul citit
+ */
+public class ParsedCommandCache
+{
+    /**
+     * Numarul de locuri din cache(putere a lui 2)
+     */
+    private static final int CAPACITY = 4096;
+
+    /**
+     * Copiile liniilor aflate in cache
+     */
+    private char[][] lines = new char[CAPACITY][];
+    /**
+     * Formele parsate ale liniilor
+     */
+    private ParsedCommand[] parsedCommands = new ParsedCommand[CAPACITY];
+    /**
+     * Numarul de linii gasite in cache
+     */
+    private long hits = 0;
+    /**
+     * Numarul de linii care nu au fost gasite in cache
+     */
+    private long misses = 0;
+
+    /**
+     * Calculeaza locul unei linii in cache
+     *
+     * @param chars  bufferul liniei
+     * @param length lungimea liniei
+     * @return indexul locului
+     */
+    private static int slotOf(char[] chars, int length)
+    {
+        int hash = 0;
+        for(int i = 0; i < length; i++)
+        {
+            hash = 31 * hash + chars[i];
+        }
+
+        //amestecam bitii superiori in cei inferiori, folositi pentru index
+        hash ^= (hash >>> 16);
+        return hash & (CAPACITY - 1);
+    }
+
+    /**
+     * Cauta forma parsata a unei linii
+     *
+     * @param chars  bufferul liniei
+     * @param length lungimea liniei
+     * @return forma parsata, daca linia se afla in cache
+     *         null, altfel
+     */
+    public ParsedCommand get(char[] chars, int length)
+    {
+        int slot = slotOf(chars, length);
+        char[] line = lines[slot];
+
+        if(line != null && line.length == length)
+        {
+            int i = 0;
+            while(i < length && line[i] == chars[i])
+            {
+                i++;
+            }
+
+            if(i == length)
+            {
+                hits++;
+                return parsedCommands[slot];
+            }
+        }
+
+        misses++;
+        return null;
+    }
+
+    /**
+     * Adauga forma parsata a unei linii in cache
+     *
+     * @param chars         bufferul liniei(este copiat)
+     * @param length        lungimea liniei
+     * @param parsedCommand forma parsata
+     */
+    public void put(char[] chars, int length, ParsedCommand parsedCommand)
+    {
+        int slot = slotOf(chars, length);
+
+        char[] line = new char[length];
+        System.arraycopy(chars, 0, line, 0, length);
+
+        lines[slot] = line;
+        parsedCommands[slot] = parsedCommand;
+    }
+
+    /**
+     * Intoarce numarul de linii gasite in cache
+     *
+     * @return numarul de hituri
+     */
+    public long getHits()
+    {
+        return hits;
+    }
+
+    /**
+     * Intoarce numarul de linii care nu au fost gasite in cache
+     *
+     * @return numarul de missuri
+     */
+    public long getMisses()
+    {
+        return misses;
+    }
+}
@@ -0,0 +1,207 @@
+/**
+ * Rezolva o cale direct peste nodurile sistemului de fisiere
+ * Calea este parcursa o singura data, pornind de la root(cai absolute) sau de la directorul curent(cai relative),
+ * fara a construi liste de tokenuri sau cai intermediare
+ */
+public class PathResolver
+{
+    /**
+     * Nodul la care duce calea(null daca nu exista)
+     */
+    private FileSystem node = null;
+    /**
+     * Ultimul nod existent intalnit pe cale
+     */
+    private FileSystem lastExistingNode = null;
+    /**
+     * Numarul de tokenuri de la finalul caii care nu exista in sistemul de fisiere
+     */
+    private int missingTokens = 0;
+    /**
+     * Ultimul token(nume de nod) din cale
+     */
+    private String lastName = "";
+    /**
+     * true daca rezolvarea caii a esuat(de exemplu .. pe root)
+     */
+    private boolean failed = false;
+
+    /**
+     * Construieste un obiect de tip PathResolver si rezolva calea primita
+     *
+     * @param path       calea ce trebuie rezolvata
+     * @param fileSystem o referinta catre sistemul de fisiere
+     */
+    public PathResolver(String path, FileSystem fileSystem)
+    {
+        if(path.charAt(0) == '/')
+        {
+            //Calea este absoluta, pornim de la root
+            resolve(fileSystem.getChild("/"), path);
+        }
+        else
+        {
+            //Calea este relativa, pornim de la directorul curent
+            resolve(FileSystem.getCurrentDirectory(), path);
+        }
+    }
+
+    /**
+     * Construieste un obiect de tip PathResolver si rezolva o cale relativa la un nod dat
+     *
+     * @param startNode    nodul de la care porneste calea
+     * @param relativePath calea ce trebuie rezolvata(poate sa fie goala)
+     */
+    public PathResolver(FileSystem startNode, String relativePath)
+    {
+        resolve(startNode, relativePath);
+    }
+
+    /**
+     * Parcurge calea token cu token, pornind de la un nod dat
+     *
+     * @param current nodul de la care porneste parcurgerea
+     * @param path    calea ce trebuie parcursa
+     */
+    private void resolve(FileSystem current, String path)
+    {
+        int length = path.length();
+        int tokenStart = 0;
+
+        while(tokenStart <= length && !failed)
+        {
+            int tokenEnd = path.indexOf('/', tokenStart);
+            if(tokenEnd < 0)
+            {
+                tokenEnd = length;
+            }
+
+            int tokenLength = tokenEnd - tokenStart;
+
+            if(tokenLength == 0 || (tokenLength == 1 && path.charAt(tokenStart) == '.'))
+            {
+                //ignoram tokenurile goale si . deoarece . = directorul curent
+            }
+            else if(tokenLength == 2 && path.startsWith("..", tokenStart))
+            {
+                /*
+                    .. inseamna directorul anterior
+                    Are sens doar daca nodul la care am ajuns exista, este un director si nu este root
+                 */
+                if(missingTokens > 0 || !(current instanceof FileSystemDirectory) || current.getNodeParent() == null)
+                {
+                    failed = true;
+                }
+                else
+                {
+                    current = current.getNodeParent();
+                }
+            }
+            else
+            {
+                //E un token normal(nu ./..), il cautam in nodul curent
+                lastName = path.substring(tokenStart, tokenEnd);
+
+                if(missingTokens > 0)
+                {
+                    missingTokens++;
+                }
+                else
+                {
+                    FileSystem child = current.getChild(lastName);
+
+                    if(child == null)
+                    {
+                        missingTokens = 1;
+                    }
+                    else
+                    {
+                        current = child;
+                    }
+                }
+            }
+
+            tokenStart = tokenEnd + 1;
+        }
+
+        if(!failed)
+        {
+            lastExistingNode = current;
+
+            if(missingTokens == 0)
+            {
+                node = current;
+            }
+        }
+    }
+
+    /**
+     * Intoarce nodul la care duce calea
+     *
+     * @param nodeType tipul de nod cautat(NodeType enum)
+     * @return referinta catre nod, daca acesta exista si are tipul cerut
+     *         null, altfel
+     */
+    public FileSystem getReference(NodeType nodeType)
+    {
+        if(node == null)
+        {
+            return null;
+        }
+
+        if(nodeType == NodeType.DirectoryNode && !(node instanceof FileSystemDirectory))
+        {
+            return null;
+        }
+
+        if(nodeType == NodeType.FileNode && !(node instanceof FileSystemFile))
+        {
+            return null;
+        }
+
+        return node;
+    }
+
+    /**
+     * Intoarce directorul in care se afla(sau ar trebui sa se afle) ultimul nod din cale
+     *
+     * @return referinta catre director, daca acesta exista
+     *         null, altfel
+     */
+    public FileSystem getParentDirectory()
+    {
+        if(lastExistingNode == null || missingTokens > 1)
+        {
+            return null;
+        }
+
+        if(missingTokens == 0)
+        {
+            //Calea duce catre un nod existent, directorul cautat este parintele lui(root nu are parinte)
+            return lastExistingNode.getNodeParent();
+        }
+
+        if(!(lastExistingNode instanceof FileSystemDirectory))
+        {
+            return null;
+        }
+
+        return lastExistingNode;
+    }
+
+    /**
+     * Intoarce numele ultimului nod din cale
+     *
+     * @return numele ca string
+     */
+    public String getLastName()
+    {
+        if(node != null)
+        {
+            //Calea poate sa se termine cu ./.., numele efectiv este cel al nodului gasit
+            return node.getName();
+        }
+
+        return lastName;
+    }
+}
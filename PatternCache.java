@@ -0,0 +1,61 @@
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Cache LRU de dimensiune fixa pentru expresiile regulate compilate
+ * Este comun tuturor comenzilor, astfel un pattern folosit de mai multe ori este compilat o singura data
+ */
+public class PatternCache
+{
+    /**
+     * Numarul maxim de patternuri pastrate in cache
+     */
+    private static final int MAX_PATTERNS = 64;
+
+    /**
+     * Patternurile compilate, in ordinea ultimei folosiri(cel mai vechi este primul)
+     */
+    private static final LinkedHashMap<String, Pattern> patterns =
+        new LinkedHashMap<String, Pattern>(MAX_PATTERNS * 2, 0.75f, true)
+        {
+            /**
+             * Sterge cel mai vechi pattern atunci cand cache-ul depaseste dimensiunea maxima
+             *
+             * @param eldest patternul folosit cel mai de demult
+             * @return true, daca patternul trebuie sters
+             *         false, altfel
+             */
+            protected boolean removeEldestEntry(Map.Entry<String, Pattern> eldest)
+            {
+                return size() > MAX_PATTERNS;
+            }
+        };
+
+    /**
+     * Constructorul este private, clasa contine doar metode statice
+     */
+    private PatternCache()
+    {
+
+    }
+
+    /**
+     * Intoarce patternul compilat pentru o expresie regulata, compiland-o doar daca nu se afla deja in cache
+     *
+     * @param regexPattern expresia regulata
+     * @return patternul compilat
+     */
+    public static synchronized Pattern getPattern(String regexPattern)
+    {
+        Pattern pattern = patterns.get(regexPattern);
+
+        if(pattern == null)
+        {
+            pattern = Pattern.compile(regexPattern);
+            patterns.put(regexPattern, pattern);
+        }
+
+        return pattern;
+    }
+}
@@ -0,0 +1,104 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.EOFException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+
+/**
+ * Clientul unui ScriptServer: trimite un script si scrie fisierele de output si de erori primite inapoi
+ */
+public class ScriptClient
+{
+    /**
+     * Constructorul este private, clasa contine doar metode statice
+     */
+    private ScriptClient()
+    {
+
+    }
+
+    /**
+     * Executa un script pe un sistem de fisiere pastrat de un ScriptServer
+     *
+     * @param port       portul local al serverului
+     * @param treeName   numele sistemului de fisiere din server
+     * @param inputFile  fisierul cu scriptul
+     * @param outputFile fisierul de output
+     * @param errorFile  fisierul de erori
+     * @return true, daca scriptul a fost executat complet
+     *         false, daca scriptul a fost oprit de o exceptie(mesajul este afisat la stderr)
+     * @throws IOException in cazul unei erori de citire/scriere sau de comunicare
+     */
+    public static boolean run(int port, String treeName, String inputFile, String outputFile, String errorFile)
+        throws IOException
+    {
+        byte[] script = Files.readAllBytes(Paths.get(inputFile));
+
+        try(Socket socket = new Socket(InetAddress.getLoopbackAddress(), port))
+        {
+            OutputStream output = new BufferedOutputStream(socket.getOutputStream());
+            ScriptServer.writeHeader(output, "AUTH " + ScriptServer.readSecret(port));
+            ScriptServer.writeHeader(output, "RUN " + treeName + " " + script.length);
+            output.write(script);
+            output.flush();
+
+            InputStream input = new BufferedInputStream(socket.getInputStream());
+            String header = ScriptServer.readHeader(input);
+            if(header == null)
+            {
+                throw new EOFException();
+            }
+
+            String[] fields = header.split(" ", 4);
+            if(fields[0].equals("ERROR"))
+            {
+                throw new IOException(header);
+            }
+
+            copy(input, Long.parseLong(fields[1]), outputFile);
+            copy(input, Long.parseLong(fields[2]), errorFile);
+
+            if(fields[0].equals("FAILED"))
+            {
+                System.err.println(fields.length == 4 ? fields[3] : "script failed");
+                return false;
+            }
+
+            return true;
+        }
+    }
+
+    /**
+     * Copiaza un numar de octeti dintr-un flux intr-un fisier
+     *
+     * @param input    fluxul
+     * @param length   numarul de octeti
+     * @param fileName numele fisierului
+     * @throws IOException in cazul unei erori de citire/scriere
+     */
+    private static void copy(InputStream input, long length, String fileName) throws IOException
+    {
+        try(OutputStream file = new FileOutputStream(fileName))
+        {
+            byte[] buffer = new byte[1 << 16];
+
+            while(length > 0)
+            {
+                int count = input.read(buffer, 0, (int)Math.min(buffer.length, length));
+                if(count < 0)
+                {
+                    throw new EOFException();
+                }
+
+                file.write(buffer, 0, count);
+                length -= count;
+            }
+        }
+    }
+}
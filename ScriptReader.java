@@ -0,0 +1,268 @@
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+
+/**
+ * Citeste scriptul de intrare linie cu linie, printr-un buffer mare de octeti
+ * Liniile sunt separate direct pe octeti si sunt copiate intr-un buffer de caractere refolosit,
+ * astfel citirea unei linii nu aloca obiecte noi(cu exceptia liniilor care contin caractere non-ASCII)
+ * Sunt recunoscute terminatiile de linie \n, \r\n si \r
+ * Sursa octetilor este data de metoda fill, pe care subclasele o pot redefini(de exemplu MappedScriptReader)
+ */
+public class ScriptReader
+{
+    /**
+     * Dimensiunea bufferului de octeti
+     */
+    private static final int BUFFER_SIZE = 1 << 20;
+
+    /**
+     * Fluxul din care se citeste scriptul(null daca octetii vin din alta sursa)
+     */
+    private InputStream input;
+    /**
+     * Tabloul de octeti in care se citeste din flux
+     */
+    private byte[] streamBuffer;
+    /**
+     * Bufferul de octeti din care sunt separate liniile
+     */
+    protected ByteBuffer buffer;
+    /**
+     * Pozitia urmatorului octet necitit din buffer
+     */
+    protected int position = 0;
+    /**
+     * Numarul de octeti valizi din buffer
+     */
+    protected int limit = 0;
+    /**
+     * true daca fluxul nu mai are octeti de citit
+     */
+    private boolean endOfInput = false;
+    /**
+     * true daca ultima linie s-a terminat cu \r, iar un \n care urmeaza face parte din aceeasi terminatie
+     */
+    private boolean skipLineFeed = false;
+
+    /**
+     * Octetii unei linii care contine caractere non-ASCII, refacuti pentru decodificare(null pana la prima astfel de linie)
+     */
+    private byte[] lineBytes;
+    /**
+     * Caracterele liniei curente; cat timp linia este citita, fiecare octet este pastrat intr-un caracter(0-255)
+     */
+    private char[] line = new char[256];
+    /**
+     * Numarul de caractere din linia curenta
+     */
+    private int lineLength = 0;
+
+    /**
+     * Construieste un obiect de tip ScriptReader peste un fisier
+     *
+     * @param fileName numele fisierului
+     * @throws FileNotFoundException daca fisierul nu poate sa fie deschis
+     */
+    public ScriptReader(String fileName) throws FileNotFoundException
+    {
+        this(new FileInputStream(fileName));
+    }
+
+    /**
+     * Construieste un obiect de tip ScriptReader peste un flux de octeti
+     *
+     * @param input fluxul din care se citeste
+     */
+    public ScriptReader(InputStream input)
+    {
+        this.input = input;
+        streamBuffer = new byte[BUFFER_SIZE];
+        buffer = ByteBuffer.wrap(streamBuffer);
+    }
+
+    /**
+     * Construieste un obiect de tip ScriptReader fara flux, pentru subclasele care isi umplu singure bufferul
+     */
+    protected ScriptReader()
+    {
+
+    }
+
+    /**
+     * Citeste urmatoarea linie din script
+     *
+     * @return true, daca a fost citita o linie
+     *         false, daca scriptul s-a terminat
+     * @throws IOException in cazul unei erori de citire
+     */
+    public boolean nextLine() throws IOException
+    {
+        lineLength = 0;
+        boolean nonAscii = false;
+        boolean lineFound = false;
+
+        while(true)
+        {
+            if(position == limit && !fill())
+            {
+                //ultima linie din fisier poate sa nu se termine cu o terminatie de linie
+                break;
+            }
+
+            if(skipLineFeed)
+            {
+                skipLineFeed = false;
+
+                if(buffer.get(position) == '\n')
+                {
+                    position++;
+                    continue;
+                }
+            }
+
+            lineFound = true;
+
+            //cautam terminatia de linie in bucata de buffer ramasa, copiind octetii direct in caracterele liniei
+            byte b = 0;
+            while(position < limit)
+            {
+                b = buffer.get(position);
+
+                if(b == '\n' || b == '\r')
+                {
+                    break;
+                }
+
+                if(b < 0)
+                {
+                    nonAscii = true;
+                }
+
+                if(lineLength == line.length)
+                {
+                    growLine();
+                }
+                line[lineLength++] = (char)(b & 0xFF);
+
+                position++;
+            }
+
+            if(position < limit)
+            {
+                //am gasit terminatia de linie, o consumam
+                position++;
+                skipLineFeed = (b == '\r');
+                break;
+            }
+        }
+
+        if(nonAscii)
+        {
+            /*
+                linia contine caractere non-ASCII, o decodificam cu charsetul implicit(la fel ca Scanner)
+                fiecare caracter contine inca un octet, deci octetii liniei pot fi refacuti exact
+             */
+            if(lineBytes == null || lineBytes.length < lineLength)
+            {
+                lineBytes = new byte[line.length];
+            }
+            for(int i = 0; i < lineLength; i++)
+            {
+                lineBytes[i] = (byte)line[i];
+            }
+
+            String decoded = new String(lineBytes, 0, lineLength, Charset.defaultCharset());
+            lineLength = decoded.length();
+            decoded.getChars(0, lineLength, line, 0);
+        }
+
+        return lineFound;
+    }
+
+    /**
+     * Umple bufferul cu urmatorii octeti din flux si reseteaza position si limit
+     *
+     * @return true, daca au fost cititi octeti
+     *         false, daca fluxul s-a terminat
+     * @throws IOException in cazul unei erori de citire
+     */
+    protected boolean fill() throws IOException
+    {
+        if(endOfInput)
+        {
+            return false;
+        }
+
+        int count = input.read(streamBuffer, 0, streamBuffer.length);
+
+        while(count == 0)
+        {
+            count = input.read(streamBuffer, 0, streamBuffer.length);
+        }
+
+        if(count < 0)
+        {
+            endOfInput = true;
+            return false;
+        }
+
+        position = 0;
+        limit = count;
+        return true;
+    }
+
+    /**
+     * Dubleaza bufferul cu caracterele liniei curente
+     */
+    private void growLine()
+    {
+        char[] newLine = new char[line.length * 2];
+        System.arraycopy(line, 0, newLine, 0, lineLength);
+        line = newLine;
+    }
+
+    /**
+     * Intoarce bufferul cu caracterele liniei curente
+     * Bufferul este refolosit, continutul lui este valid doar pana la urmatorul apel nextLine
+     *
+     * @return bufferul de caractere
+     */
+    public char[] getLine()
+    {
+        return line;
+    }
+
+    /**
+     * Intoarce numarul de caractere din linia curenta
+     *
+     * @return lungimea liniei
+     */
+    public int getLineLength()
+    {
+        return lineLength;
+    }
+
+    /**
+     * Inchide fluxul din care se citeste scriptul
+     */
+    public void close()
+    {
+        if(input == null)
+        {
+            return;
+        }
+
+        try
+        {
+            input.close();
+        }
+        catch(IOException ex)
+        {
+            //fluxul este doar citit, nu avem ce pierde
+        }
+    }
+}
@@ -0,0 +1,479 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintWriter;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Server care pastreaza in memorie unul sau mai multe sisteme de fisiere(identificate prin nume) si executa
+ * scripturile primite pe un socket local, intorcand pentru fiecare script continutul fisierelor de output si de erori
+ * Astfel, scripturile scurte ruleaza intr-un JVM deja incalzit, peste un sistem de fisiere care nu mai trebuie reconstruit
+ *
+ * Socketul este deschis doar pe interfata locala, dar orice utilizator al masinii s-ar putea conecta la el, iar
+ * scripturile pot citi si scrie fisiere de pe disc(save, load, import). De aceea, la pornire serverul genereaza
+ * un secret aleator, scris intr-un fisier pe care doar utilizatorul care a pornit serverul il poate citi,
+ * iar fiecare conexiune trebuie sa inceapa cu acest secret
+ *
+ * Cel mult MAX_CONNECTIONS conexiuni sunt tratate in paralel, fiecare pe un thread din pool, cu propria sesiune;
+ * celelalte asteapta in coada socketului pana se elibereaza un loc. Scripturile trimise pe acelasi sistem de fisiere
+ * sunt executate pe rand(lacatul arborelui), iar cele pe sisteme de fisiere diferite ruleaza in paralel, cu blocarile
+ * din TreeLocks activate. O conexiune care nu trimite nimic este inchisa dupa CONNECTION_TIMEOUT ms
+ *
+ * Protocolul: fiecare conexiune incepe cu linia
+ *   AUTH secret           secretul din fisierul tokenFile(port)
+ * apoi fiecare cerere incepe cu o linie de antet(ASCII, terminata cu \n)
+ *   RUN nume lungime      urmata de lungime octeti(scriptul); scriptul este executat pe sistemul de fisiere nume
+ *   DROP nume             sterge sistemul de fisiere nume
+ *   SHUTDOWN              opreste serverul
+ * Raspunsul incepe tot cu o linie de antet
+ *   OK lungimeOutput lungimeErori                urmata de octetii celor doua fisiere
+ *   FAILED lungimeOutput lungimeErori mesaj      scriptul a fost oprit de o exceptie(mesaj), urmata de octetii scrisi pana atunci
+ *   ERROR mesaj                                  cererea nu a putut fi inteleasa
+ */
+public class ScriptServer
+{
+    /**
+     * Numele sistemului de fisiere folosit cand clientul nu specifica altul
+     */
+    public static final String DEFAULT_TREE = "default";
+    /**
+     * Lungimea maxima a unui script primit(in octeti); o cerere mai lunga este refuzata inainte de a fi citita
+     */
+    static final int MAX_SCRIPT_LENGTH = 64 << 20;
+    /**
+     * Lungimea maxima a unei linii de antet
+     */
+    private static final int MAX_HEADER_LENGTH = 4096;
+    /**
+     * Timpul maxim(in ms) cat serverul asteapta date de la un client
+     */
+    private static final int CONNECTION_TIMEOUT = 10000;
+    /**
+     * Numarul maxim de conexiuni tratate in acelasi timp
+     */
+    private static final int MAX_CONNECTIONS = 16;
+    /**
+     * Numarul de octeti aleatori din secret
+     */
+    private static final int SECRET_LENGTH = 32;
+
+    /**
+     * Socketul pe care sunt acceptate conexiunile(doar de pe masina locala)
+     */
+    private ServerSocket serverSocket;
+    /**
+     * Secretul pe care trebuie sa il trimita clientii
+     */
+    private String secret;
+    /**
+     * Fisierul in care este scris secretul
+     */
+    private Path secretFile;
+    /**
+     * Sistemele de fisiere pastrate in memorie(nodul dummy al fiecaruia), dupa nume
+     * Nodul dummy este si lacatul arborelui: un singur script ruleaza pe un sistem de fisiere la un moment dat
+     */
+    private ConcurrentHashMap<String, FileSystemDirectory> trees = new ConcurrentHashMap<>();
+    /**
+     * Locurile libere pentru conexiuni; threadul care accepta conexiuni asteapta un loc inainte de accept
+     */
+    private Semaphore openConnections = new Semaphore(MAX_CONNECTIONS);
+    /**
+     * true cat timp serverul accepta cereri
+     */
+    private volatile boolean running = true;
+
+    /**
+     * Construieste un obiect de tip ScriptServer
+     *
+     * @param port portul local pe care asculta serverul
+     * @throws IOException daca portul nu poate sa fie deschis sau secretul nu poate sa fie scris
+     */
+    public ScriptServer(int port) throws IOException
+    {
+        serverSocket = new ServerSocket(port, 50, InetAddress.getLoopbackAddress());
+
+        byte[] randomBytes = new byte[SECRET_LENGTH];
+        new SecureRandom().nextBytes(randomBytes);
+        StringBuilder hex = new StringBuilder();
+        for(byte b : randomBytes)
+        {
+            hex.append(String.format("%02x", b));
+        }
+        secret = hex.toString();
+
+        try
+        {
+            secretFile = tokenFile(serverSocket.getLocalPort());
+            writeSecret(secretFile, secret);
+        }
+        catch(IOException ex)
+        {
+            serverSocket.close();
+            throw ex;
+        }
+    }
+
+    /**
+     * Intoarce fisierul in care serverul de pe un port isi scrie secretul
+     *
+     * @param port portul serverului
+     * @return calea fisierului(in directorul .powerbash din home-ul utilizatorului)
+     */
+    static Path tokenFile(int port)
+    {
+        return Paths.get(System.getProperty("user.home"), ".powerbash", "daemon-" + port + ".token");
+    }
+
+    /**
+     * Scrie secretul intr-un fisier nou, pe care doar utilizatorul curent il poate citi
+     * Pe un sistem de fisiere fara permisiuni POSIX, fisierul este creat cu permisiunile implicite
+     *
+     * @param file   fisierul
+     * @param secret secretul
+     * @throws IOException daca fisierul nu poate sa fie scris
+     */
+    private static void writeSecret(Path file, String secret) throws IOException
+    {
+        Path directory = file.getParent();
+        boolean posix = directory.getFileSystem().supportedFileAttributeViews().contains("posix");
+
+        if(posix)
+        {
+            try
+            {
+                Files.createDirectory(directory, PosixFilePermissions.asFileAttribute(
+                                                     PosixFilePermissions.fromString("rwx------")));
+            }
+            catch(FileAlreadyExistsException ex)
+            {
+                //directorul a fost creat de o rulare anterioara
+            }
+        }
+        else
+        {
+            Files.createDirectories(directory);
+        }
+
+        //un fisier ramas de la un server oprit fortat este inlocuit; fisierul nou este creat cu permisiunile finale
+        Files.deleteIfExists(file);
+        if(posix)
+        {
+            Files.createFile(file, PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rw-------")));
+        }
+        else
+        {
+            Files.createFile(file);
+        }
+
+        Files.write(file, secret.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    /**
+     * Citeste secretul unui server pornit pe un port
+     *
+     * @param port portul serverului
+     * @return secretul
+     * @throws IOException daca fisierul secretului nu poate sa fie citit
+     */
+    static String readSecret(int port) throws IOException
+    {
+        return new String(Files.readAllBytes(tokenFile(port)), StandardCharsets.US_ASCII).trim();
+    }
+
+    /**
+     * Accepta conexiuni si executa cererile primite, pana la o cerere SHUTDOWN
+     * Fiecare conexiune este tratata pe un thread din pool si poate trimite mai multe cereri
+     *
+     * @throws IOException daca fisierul secretului nu poate sa fie sters
+     */
+    public void serve() throws IOException
+    {
+        //sistemele de fisiere sunt independente, dar copiile lazy si cache-ul cailor folosesc stare comuna
+        TreeLocks.enable();
+        ExecutorService executor = Executors.newFixedThreadPool(MAX_CONNECTIONS);
+
+        while(running)
+        {
+            openConnections.acquireUninterruptibly();
+
+            Socket socket;
+            try
+            {
+                socket = serverSocket.accept();
+            }
+            catch(IOException ex)
+            {
+                openConnections.release();
+                if(serverSocket.isClosed())
+                {
+                    break; //socketul a fost inchis de o cerere SHUTDOWN
+                }
+                continue; //o conexiune intrerupta nu opreste serverul
+            }
+
+            executor.execute(() -> serveConnection(socket));
+        }
+
+        //conexiunile deschise se termina dupa cererea curenta
+        executor.shutdown();
+        try
+        {
+            while(!executor.awaitTermination(1, TimeUnit.MINUTES))
+            {
+                //asteptam toate conexiunile, oricat ar dura
+            }
+        }
+        catch(InterruptedException ex)
+        {
+            Thread.currentThread().interrupt();
+        }
+
+        serverSocket.close();
+        Files.deleteIfExists(secretFile);
+    }
+
+    /**
+     * Trateaza o conexiune pe threadul curent, cu o sesiune proprie, apoi o inchide
+     *
+     * @param socket conexiunea
+     */
+    private void serveConnection(Socket socket)
+    {
+        Session.attach(new Session());
+
+        try(Socket connection = socket)
+        {
+            //un client care nu mai trimite nimic nu ocupa un loc la nesfarsit
+            connection.setSoTimeout(CONNECTION_TIMEOUT);
+            handleConnection(connection);
+        }
+        catch(IOException ex)
+        {
+            //o conexiune intrerupta nu opreste serverul
+        }
+        catch(RuntimeException ex)
+        {
+            //o cerere invalida inchide doar conexiunea ei, serverul ramane pornit
+            System.err.println("daemon: " + ex);
+        }
+        finally
+        {
+            Session.attach(null);
+            openConnections.release();
+        }
+    }
+
+    /**
+     * Trateaza cererile trimise pe o conexiune, pana cand clientul o inchide
+     *
+     * @param socket conexiunea
+     * @throws IOException in cazul unei erori de comunicare
+     */
+    private void handleConnection(Socket socket) throws IOException
+    {
+        InputStream input = new BufferedInputStream(socket.getInputStream());
+        OutputStream output = new BufferedOutputStream(socket.getOutputStream());
+
+        //prima linie trebuie sa contina secretul; comparatia nu depinde de pozitia primei diferente
+        String authentication = readHeader(input);
+        byte[] expected = ("AUTH " + secret).getBytes(StandardCharsets.US_ASCII);
+        if(authentication == null ||
+           !MessageDigest.isEqual(authentication.getBytes(StandardCharsets.US_ASCII), expected))
+        {
+            writeHeader(output, "ERROR authentication required");
+            output.flush();
+            return;
+        }
+
+        String header;
+        while(running && (header = readHeader(input)) != null)
+        {
+            boolean keepOpen = handleRequest(header, input, output);
+            output.flush();
+
+            if(!keepOpen)
+            {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Trateaza o cerere
+     *
+     * @param header linia de antet a cererii
+     * @param input  fluxul din care se citeste corpul cererii
+     * @param output fluxul in care se scrie raspunsul
+     * @return true, daca pe conexiune pot fi trimise alte cereri
+     *         false, daca corpul cererii nu a fost citit(conexiunea trebuie inchisa)
+     * @throws IOException in cazul unei erori de comunicare
+     */
+    private boolean handleRequest(String header, InputStream input, OutputStream output) throws IOException
+    {
+        String[] fields = header.split(" ");
+
+        if(fields[0].equals("RUN") && fields.length == 3)
+        {
+            int length;
+            try
+            {
+                length = Integer.parseInt(fields[2]);
+            }
+            catch(NumberFormatException ex)
+            {
+                writeHeader(output, "ERROR invalid length " + fields[2]);
+                return false;
+            }
+
+            if(length < 0 || length > MAX_SCRIPT_LENGTH)
+            {
+                //scriptul nu este citit, deci restul conexiunii nu mai poate fi interpretat
+                writeHeader(output, "ERROR invalid length " + fields[2]);
+                return false;
+            }
+
+            byte[] script = input.readNBytes(length);
+            if(script.length != length)
+            {
+                throw new EOFException();
+            }
+
+            runScript(fields[1], script, output);
+        }
+        else if(fields[0].equals("DROP") && fields.length == 2)
+        {
+            trees.remove(fields[1]);
+            writeHeader(output, "OK 0 0");
+        }
+        else if(fields[0].equals("SHUTDOWN"))
+        {
+            running = false;
+            writeHeader(output, "OK 0 0");
+            output.flush();
+            serverSocket.close(); //opreste accept-ul din serve()
+        }
+        else
+        {
+            writeHeader(output, "ERROR unknown request");
+        }
+
+        return true;
+    }
+
+    /**
+     * Executa un script pe un sistem de fisiere din memorie(creat daca nu exista) si trimite rezultatul
+     * Fiecare script porneste din root, cu indexul comenzilor de la 1, la fel ca o rulare separata
+     *
+     * @param treeName numele sistemului de fisiere
+     * @param script   octetii scriptului
+     * @param output   fluxul in care se scrie raspunsul
+     * @throws IOException in cazul unei erori de comunicare
+     */
+    private void runScript(String treeName, byte[] script, OutputStream output) throws IOException
+    {
+        FileSystemDirectory dummyNode = trees.computeIfAbsent(treeName, name -> Main.createFileSystem());
+
+        ByteArrayOutputStream outputBytes = new ByteArrayOutputStream();
+        ByteArrayOutputStream errorBytes = new ByteArrayOutputStream();
+        Session.current().setWriters(new PrintWriter(outputBytes), new PrintWriter(errorBytes));
+
+        String failure = null;
+        synchronized(dummyNode)
+        {
+            FileSystem.setCurrentDirectory(dummyNode.getChild("/"));
+
+            try
+            {
+                Main.runScript(new ScriptReader(new ByteArrayInputStream(script)), dummyNode);
+            }
+            catch(RuntimeException ex)
+            {
+                //o rulare separata s-ar fi oprit aici; serverul raporteaza exceptia si ramane pornit
+                failure = ex.toString().replace('\n', ' ').replace('\r', ' ');
+            }
+        }
+
+        Session.output().flush();
+        Session.error().flush();
+
+        String status = (failure == null) ? "OK" : "FAILED";
+        String header = status + " " + outputBytes.size() + " " + errorBytes.size();
+        if(failure != null)
+        {
+            header += " " + failure;
+        }
+
+        writeHeader(output, header);
+        outputBytes.writeTo(output);
+        errorBytes.writeTo(output);
+    }
+
+    /**
+     * Citeste o linie de antet(ASCII, terminata cu \n)
+     *
+     * @param input fluxul din care se citeste
+     * @return linia fara \n, sau null daca fluxul s-a terminat inainte de antet
+     * @throws IOException daca fluxul se termina in mijlocul antetului sau antetul este prea lung
+     */
+    static String readHeader(InputStream input) throws IOException
+    {
+        StringBuilder header = new StringBuilder();
+        int b = input.read();
+
+        if(b < 0)
+        {
+            return null;
+        }
+
+        while(b != '\n')
+        {
+            if(b < 0)
+            {
+                throw new EOFException();
+            }
+
+            if(header.length() >= MAX_HEADER_LENGTH)
+            {
+                throw new IOException("header too long");
+            }
+
+            header.append((char)b);
+            b = input.read();
+        }
+
+        return header.toString();
+    }
+
+    /**
+     * Scrie o linie de antet
+     *
+     * @param output fluxul in care se scrie
+     * @param header linia, fara \n
+     * @throws IOException in cazul unei erori de comunicare
+     */
+    static void writeHeader(OutputStream output, String header) throws IOException
+    {
+        output.write((header + "\n").getBytes(StandardCharsets.US_ASCII));
+    }
+}
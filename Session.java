@@ -0,0 +1,145 @@
+import java.io.PrintWriter;
+
+/**
+ * Starea unei sesiuni care executa un script: directorul curent, fisierele de output si de erori
+ * si indexul comenzii curente
+ * Fiecare thread poate avea propria sesiune; un thread fara sesiune proprie foloseste sesiunea implicita,
+ * astfel o rulare cu un singur script se comporta la fel ca inainte
+ */
+public class Session
+{
+    /**
+     * Sesiunea folosita de threadurile care nu au o sesiune proprie
+     */
+    private static final Session defaultSession = new Session();
+    /**
+     * Sesiunea proprie a fiecarui thread(null daca threadul foloseste sesiunea implicita)
+     */
+    private static final ThreadLocal<Session> threadSession = new ThreadLocal<>();
+
+    /**
+     * Directorul curent al sesiunii
+     */
+    private FileSystem currentDirectory;
+    /**
+     * Obiect de tipul PrintWriter folosit pentru a scrie fisierul de output
+     */
+    private PrintWriter outputFileWriter;
+    /**
+     * Obiect de tipul PrintWriter folosit pentru a scrie fisierul de erori
+     */
+    private PrintWriter errorFileWriter;
+    /**
+     * Indexul comenzii curente
+     */
+    private int currentCommandIndex;
+
+    /**
+     * Intoarce sesiunea threadului curent
+     *
+     * @return sesiunea proprie a threadului, daca exista
+     *         sesiunea implicita, altfel
+     */
+    public static Session current()
+    {
+        Session session = threadSession.get();
+        return (session != null) ? session : defaultSession;
+    }
+
+    /**
+     * Seteaza sesiunea proprie a threadului curent
+     *
+     * @param session sesiunea(null pentru a reveni la sesiunea implicita)
+     */
+    public static void attach(Session session)
+    {
+        if(session == null)
+        {
+            threadSession.remove();
+        }
+        else
+        {
+            threadSession.set(session);
+        }
+    }
+
+    /**
+     * Intoarce fisierul de output al sesiunii threadului curent
+     *
+     * @return PrintWriter-ul fisierului de output
+     */
+    public static PrintWriter output()
+    {
+        return current().outputFileWriter;
+    }
+
+    /**
+     * Intoarce fisierul de erori al sesiunii threadului curent
+     *
+     * @return PrintWriter-ul fisierului de erori
+     */
+    public static PrintWriter error()
+    {
+        return current().errorFileWriter;
+    }
+
+    /**
+     * Seteaza fisierele in care scrie sesiunea
+     *
+     * @param outputFileWriter fisierul de output
+     * @param errorFileWriter  fisierul de erori
+     */
+    public void setWriters(PrintWriter outputFileWriter, PrintWriter errorFileWriter)
+    {
+        this.outputFileWriter = outputFileWriter;
+        this.errorFileWriter = errorFileWriter;
+    }
+
+    /**
+     * Intoarce directorul curent al sesiunii
+     *
+     * @return referinta catre directorul curent
+     */
+    public FileSystem getCurrentDirectory()
+    {
+        return currentDirectory;
+    }
+
+    /**
+     * Seteaza directorul curent al sesiunii
+     *
+     * @param directory noul director curent
+     */
+    public void setCurrentDirectory(FileSystem directory)
+    {
+        currentDirectory = directory;
+    }
+
+    /**
+     * Intoarce indexul comenzii curente
+     *
+     * @return indexul comenzii
+     */
+    public int getCurrentCommandIndex()
+    {
+        return currentCommandIndex;
+    }
+
+    /**
+     * Trece la urmatoarea comanda
+     *
+     * @return indexul noii comenzi
+     */
+    public int nextCommandIndex()
+    {
+        return ++currentCommandIndex;
+    }
+
+    /**
+     * Reseteaza indexul comenzilor(la inceputul unui script)
+     */
+    public void resetCommandIndex()
+    {
+        currentCommandIndex = 0;
+    }
+}
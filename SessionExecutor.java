@@ -0,0 +1,270 @@
+import java.io.BufferedReader;
+import java.io.FileNotFoundException;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.BufferedWriter;
+import java.util.ArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Executa mai multe scripturi in paralel peste acelasi sistem de fisiere
+ * Fiecare script ruleaza bucla de comenzi din Main pe propriul thread(virtual, daca JVM-ul le suporta),
+ * cu o sesiune proprie: porneste din root, are propriile fisiere de output si de erori si propriul index de comenzi
+ * La final sunt raportate numarul de scripturi si de comenzi executate pe secunda
+ */
+public class SessionExecutor
+{
+    /**
+     * Numarul maxim de sesiuni care au fisierele deschise in acelasi timp
+     * Threadurile virtuale pornesc toate odata, dar doar atatea sesiuni ruleaza efectiv, restul asteapta
+     */
+    private static final int MAX_OPEN_SESSIONS = 256;
+    /**
+     * Dimensiunea bufferului fiecarui fisier de output/erori
+     */
+    private static final int WRITER_BUFFER_SIZE = 1 << 14;
+
+    /**
+     * Nodul dummy care contine root-ul sistemului de fisiere comun
+     */
+    private FileSystemDirectory dummyNode;
+    /**
+     * Limiteaza numarul de sesiuni care ruleaza in acelasi timp
+     */
+    private Semaphore openSessions = new Semaphore(MAX_OPEN_SESSIONS);
+    /**
+     * Numarul de scripturi executate
+     */
+    private AtomicLong scriptCount = new AtomicLong();
+    /**
+     * Numarul de comenzi executate(din toate scripturile)
+     */
+    private AtomicLong commandCount = new AtomicLong();
+    /**
+     * Hiturile cache-urilor de comenzi parsate, adunate din toate sesiunile(fiecare thread are propriul cache)
+     */
+    private AtomicLong cacheHits = new AtomicLong();
+    /**
+     * Missurile cache-urilor de comenzi parsate, adunate din toate sesiunile
+     */
+    private AtomicLong cacheMisses = new AtomicLong();
+    /**
+     * Durata ultimei rulari, in nanosecunde
+     */
+    private long elapsedNanos;
+    /**
+     * true daca sesiunile ruleaza pe threaduri virtuale
+     */
+    private boolean virtualThreads;
+
+    /**
+     * Construieste un obiect de tip SessionExecutor si activeaza modul concurent al sistemului de fisiere
+     *
+     * @param dummyNode nodul dummy care contine root-ul sistemului de fisiere
+     */
+    public SessionExecutor(FileSystemDirectory dummyNode)
+    {
+        this.dummyNode = dummyNode;
+        TreeLocks.enable();
+    }
+
+    /**
+     * Citeste lista de sesiuni: fiecare linie nevida contine fisierul de intrare, fisierul de output
+     * si fisierul de erori, separate prin spatii
+     *
+     * @param fileName numele fisierului cu lista
+     * @return tripletele(intrare, output, erori), in ordinea din fisier
+     * @throws IOException daca fisierul nu poate sa fie citit sau o linie nu are 3 campuri
+     */
+    public static ArrayList<String[]> readSessionList(String fileName) throws IOException
+    {
+        ArrayList<String[]> sessions = new ArrayList<>();
+
+        try(BufferedReader reader = new BufferedReader(new FileReader(fileName)))
+        {
+            String line;
+            int lineNumber = 0;
+            while((line = reader.readLine()) != null)
+            {
+                lineNumber++;
+                line = line.trim();
+                if(line.isEmpty())
+                {
+                    continue;
+                }
+
+                String[] files = line.split("\\s+");
+                if(files.length != 3)
+                {
+                    throw new IOException("line " + lineNumber + ": expected input, output and error file");
+                }
+                sessions.add(files);
+            }
+        }
+
+        return sessions;
+    }
+
+    /**
+     * Creeaza executorul pe care ruleaza sesiunile
+     * Threadurile virtuale sunt cautate prin reflexie; pe un JVM fara ele, sesiunile ruleaza
+     * pe un pool de threaduri obisnuite, cate unul pentru fiecare procesor
+     *
+     * @return executorul
+     */
+    private ExecutorService createExecutor()
+    {
+        try
+        {
+            ExecutorService executor = (ExecutorService)Executors.class.getMethod("newVirtualThreadPerTaskExecutor")
+                                                                       .invoke(null);
+            virtualThreads = true;
+            return executor;
+        }
+        catch(ReflectiveOperationException ex)
+        {
+            virtualThreads = false;
+            return Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+        }
+    }
+
+    /**
+     * Executa toate sesiunile si asteapta terminarea lor
+     *
+     * @param sessions tripletele(intrare, output, erori)
+     */
+    public void runAll(ArrayList<String[]> sessions)
+    {
+        ExecutorService executor = createExecutor();
+        long start = System.nanoTime();
+
+        for(String[] files : sessions)
+        {
+            executor.execute(() -> runSession(files[0], files[1], files[2]));
+        }
+
+        executor.shutdown();
+        try
+        {
+            while(!executor.awaitTermination(1, TimeUnit.MINUTES))
+            {
+                //asteptam toate sesiunile, oricat ar dura
+            }
+        }
+        catch(InterruptedException ex)
+        {
+            Thread.currentThread().interrupt();
+        }
+
+        elapsedNanos = System.nanoTime() - start;
+    }
+
+    /**
+     * Executa un script intr-o sesiune noua, pe threadul curent
+     * O exceptie opreste doar sesiunea respectiva(ca o rulare separata), celelalte continua
+     *
+     * @param inputFile  fisierul de intrare
+     * @param outputFile fisierul de output
+     * @param errorFile  fisierul de erori
+     */
+    private void runSession(String inputFile, String outputFile, String errorFile)
+    {
+        try
+        {
+            openSessions.acquire();
+        }
+        catch(InterruptedException ex)
+        {
+            Thread.currentThread().interrupt();
+            return;
+        }
+
+        Session session = new Session();
+        session.setCurrentDirectory(dummyNode.getChild("/")); //fiecare sesiune porneste din root
+        Session.attach(session);
+
+        //un thread din pool poate executa mai multe sesiuni, deci numaram doar ce s-a adunat in timpul sesiunii
+        ParsedCommandCache cache = CommandFactory.getInstance().getParsedCommandCache();
+        long hitsBefore = cache.getHits();
+        long missesBefore = cache.getMisses();
+
+        ScriptReader scriptReader = null;
+        PrintWriter outputFileWriter = null;
+        PrintWriter errorFileWriter = null;
+        try
+        {
+            scriptReader = new ScriptReader(inputFile);
+            outputFileWriter = new PrintWriter(new BufferedWriter(new FileWriter(outputFile), WRITER_BUFFER_SIZE));
+            errorFileWriter = new PrintWriter(new BufferedWriter(new FileWriter(errorFile), WRITER_BUFFER_SIZE));
+            session.setWriters(outputFileWriter, errorFileWriter);
+
+            Main.runScript(scriptReader, dummyNode);
+        }
+        catch(FileNotFoundException ex)
+        {
+            System.err.println("sessions: " + ex.getMessage());
+        }
+        catch(IOException ex)
+        {
+            System.err.println("sessions: " + inputFile + ": " + ex.getMessage());
+        }
+        catch(RuntimeException ex)
+        {
+            System.err.println("sessions: " + inputFile + ": " + ex);
+        }
+        finally
+        {
+            if(scriptReader != null)
+            {
+                scriptReader.close();
+            }
+            if(outputFileWriter != null)
+            {
+                outputFileWriter.close();
+            }
+            if(errorFileWriter != null)
+            {
+                errorFileWriter.close();
+            }
+
+            scriptCount.incrementAndGet();
+            commandCount.addAndGet(session.getCurrentCommandIndex());
+            cacheHits.addAndGet(cache.getHits() - hitsBefore);
+            cacheMisses.addAndGet(cache.getMisses() - missesBefore);
+
+            Session.attach(null);
+            openSessions.release();
+        }
+    }
+
+    /**
+     * Intoarce statisticile cache-urilor de comenzi parsate, adunate din toate sesiunile
+     *
+     * @return numarul de hituri si de missuri
+     */
+    public String getCacheStats()
+    {
+        return "parsed command cache: " + cacheHits.get() + " hits, " + cacheMisses.get() + " misses";
+    }
+
+    /**
+     * Intoarce statisticile ultimei rulari
+     *
+     * @return numarul de scripturi si de comenzi, durata si debitul(pe secunda)
+     */
+    public String getStats()
+    {
+        double seconds = Math.max(elapsedNanos, 1) / 1e9;
+
+        return String.format("sessions: %d scripts, %d commands in %.3f s (%.1f scripts/s, %.1f commands/s, %s threads)",
+                             scriptCount.get(), commandCount.get(), seconds,
+                             scriptCount.get() / seconds, commandCount.get() / seconds,
+                             virtualThreads ? "virtual" : "platform");
+    }
+}
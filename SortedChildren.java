@@ -0,0 +1,236 @@
+import java.util.AbstractSet;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.SortedSet;
+
+/**
+ * Vedere de tip SortedSet peste un tablou de noduri aflate deja in ordine lexicografica(fara duplicate)
+ * Este folosita pentru construirea in bloc a continutului unui folder: TreeSet.addAll recunoaste un SortedSet
+ * cu aceeasi ordonare si construieste arborele in timp liniar, fara comparatii si fara rebalansari
+ * Vederile partiale(subSet, headSet, tailSet) sunt intervale din acelasi tablou, gasite prin cautare binara
+ */
+public class SortedChildren extends AbstractSet<FileSystem> implements SortedSet<FileSystem>
+{
+    /**
+     * Nodurile, in ordine lexicografica
+     */
+    private FileSystem[] nodes;
+    /**
+     * Pozitia primului nod din tablou
+     */
+    private int start;
+    /**
+     * Pozitia de dupa ultimul nod din tablou
+     */
+    private int end;
+
+    /**
+     * Construieste un obiect de tip SortedChildren
+     *
+     * @param nodes nodurile, in ordine lexicografica
+     * @param count numarul de noduri folosite din tablou
+     */
+    public SortedChildren(FileSystem[] nodes, int count)
+    {
+        this(nodes, 0, count);
+    }
+
+    /**
+     * Construieste o vedere peste un interval din tablou
+     *
+     * @param nodes nodurile, in ordine lexicografica
+     * @param start pozitia primului nod
+     * @param end   pozitia de dupa ultimul nod
+     */
+    private SortedChildren(FileSystem[] nodes, int start, int end)
+    {
+        this.nodes = nodes;
+        this.start = start;
+        this.end = end;
+    }
+
+    /**
+     * Verifica daca nodurile sunt in ordine strict crescatoare(numele sunt distincte)
+     *
+     * @return true, daca nodurile pot fi folosite pentru construirea in bloc
+     *         false, altfel
+     */
+    public boolean isStrictlySorted()
+    {
+        for(int i = start + 1; i < end; i++)
+        {
+            if(nodes[i - 1].compareTo(nodes[i]) >= 0)
+            {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Intoarce numarul de noduri
+     *
+     * @return numarul de noduri
+     */
+    public int size()
+    {
+        return end - start;
+    }
+
+    /**
+     * Intoarce un iterator peste noduri, in ordine lexicografica
+     *
+     * @return iterator
+     */
+    public Iterator<FileSystem> iterator()
+    {
+        return new Iterator<FileSystem>()
+        {
+            private int index = start;
+
+            public boolean hasNext()
+            {
+                return index < end;
+            }
+
+            public FileSystem next()
+            {
+                if(index >= end)
+                {
+                    throw new NoSuchElementException();
+                }
+
+                return nodes[index++];
+            }
+        };
+    }
+
+    /**
+     * Nodurile sunt ordonate natural(dupa nume), la fel ca intr-un TreeSet fara comparator
+     *
+     * @return null
+     */
+    public Comparator<? super FileSystem> comparator()
+    {
+        return null;
+    }
+
+    /**
+     * Intoarce primul nod
+     *
+     * @return primul nod in ordine lexicografica
+     */
+    public FileSystem first()
+    {
+        if(start == end)
+        {
+            throw new NoSuchElementException();
+        }
+
+        return nodes[start];
+    }
+
+    /**
+     * Intoarce ultimul nod
+     *
+     * @return ultimul nod in ordine lexicografica
+     */
+    public FileSystem last()
+    {
+        if(start == end)
+        {
+            throw new NoSuchElementException();
+        }
+
+        return nodes[end - 1];
+    }
+
+    /**
+     * Cauta pozitia primului nod care nu este mai mic decat un nod dat(cautare binara in interval)
+     *
+     * @param element nodul cautat
+     * @return pozitia gasita, intre start si end
+     */
+    private int lowerBound(FileSystem element)
+    {
+        int low = start;
+        int high = end;
+
+        while(low < high)
+        {
+            int middle = (low + high) >>> 1;
+
+            if(nodes[middle].compareTo(element) < 0)
+            {
+                low = middle + 1;
+            }
+            else
+            {
+                high = middle;
+            }
+        }
+
+        return low;
+    }
+
+    /**
+     * Verifica daca un nod se afla in multime(cautare binara dupa nume)
+     *
+     * @param element nodul cautat
+     * @return true, daca un nod cu acelasi nume se afla in multime
+     *         false, altfel
+     */
+    public boolean contains(Object element)
+    {
+        if(!(element instanceof FileSystem))
+        {
+            return false;
+        }
+
+        int index = lowerBound((FileSystem)element);
+        return index < end && nodes[index].compareTo(element) == 0;
+    }
+
+    /**
+     * Intoarce nodurile dintr-un interval, ca vedere peste acelasi tablou
+     * Capetele din afara multimii sunt limitate la capetele ei
+     *
+     * @param fromElement primul nod(inclus)
+     * @param toElement   nodul de dupa ultimul nod(exclus)
+     * @return vederea
+     * @throws IllegalArgumentException daca fromElement este dupa toElement
+     */
+    public SortedSet<FileSystem> subSet(FileSystem fromElement, FileSystem toElement)
+    {
+        if(fromElement.compareTo(toElement) > 0)
+        {
+            throw new IllegalArgumentException("fromElement > toElement");
+        }
+
+        return new SortedChildren(nodes, lowerBound(fromElement), lowerBound(toElement));
+    }
+
+    /**
+     * Intoarce nodurile mai mici decat un nod dat, ca vedere peste acelasi tablou
+     *
+     * @param toElement nodul de dupa ultimul nod(exclus)
+     * @return vederea
+     */
+    public SortedSet<FileSystem> headSet(FileSystem toElement)
+    {
+        return new SortedChildren(nodes, start, lowerBound(toElement));
+    }
+
+    /**
+     * Intoarce nodurile care nu sunt mai mici decat un nod dat, ca vedere peste acelasi tablou
+     *
+     * @param fromElement primul nod(inclus)
+     * @return vederea
+     */
+    public SortedSet<FileSystem> tailSet(FileSystem fromElement)
+    {
+        return new SortedChildren(nodes, lowerBound(fromElement), end);
+    }
+}
@@ -0,0 +1,137 @@
+import java.util.ArrayList;
+
+/**
+ * Forma compilata a unei cai care contine *
+ * Calea este impartita o singura data in tokenuri, iar pentru fiecare token cu * se retine expresia regulata
+ * corespunzatoare(compilata abia cand este folosita). O cale compilata poate fi expandata de mai multe ori
+ * de StarPathTokenizer, fara sa fie impartita sau compilata din nou
+ */
+public class StarPath
+{
+    /**
+     * true daca expandarea porneste de la root, false daca porneste de la directorul curent
+     */
+    private boolean absolute;
+    /**
+     * Tokenurile caii, fara tokenurile goale si fara .
+     */
+    private String[] tokens;
+    /**
+     * Patternurile tokenurilor cu *(null pentru celelalte tokenuri)
+     */
+    private LazyPattern[] patterns;
+
+    /**
+     * Compileaza o cale care contine *
+     *
+     * @param path calea
+     */
+    public StarPath(String path)
+    {
+        absolute = (path.charAt(0) == '/');
+
+        ArrayList<String> tokenList = new ArrayList<>();
+        int length = path.length();
+        int tokenStart = 0;
+
+        while(tokenStart <= length)
+        {
+            int tokenEnd = path.indexOf('/', tokenStart);
+            if(tokenEnd < 0)
+            {
+                tokenEnd = length;
+            }
+
+            String token = path.substring(tokenStart, tokenEnd);
+
+            //ignoram tokenurile goale si . deoarece . = directorul curent
+            if(!token.isEmpty() && !token.equals("."))
+            {
+                tokenList.add(token);
+            }
+
+            tokenStart = tokenEnd + 1;
+        }
+
+        tokens = tokenList.toArray(new String[0]);
+        patterns = new LazyPattern[tokens.length];
+
+        for(int i = 0; i < tokens.length; i++)
+        {
+            if(tokens[i].indexOf('*') >= 0)
+            {
+                patterns[i] = new LazyPattern(buildRegex(tokens[i]));
+            }
+        }
+    }
+
+    /**
+     * Construieste expresia regulata corespunzatoare unui token cu *
+     * Fiecare * poate fi inlocuita cu orice sir de caractere, restul tokenului este pastrat ca atare
+     * Tokenul poate contine oricate *
+     *
+     * @param token tokenul ce contine *
+     * @return expresia regulata
+     */
+    static String buildRegex(String token)
+    {
+        StringBuilder regexPattern = new StringBuilder();
+        int partStart = 0;
+        int starIndex;
+
+        while((starIndex = token.indexOf('*', partStart)) >= 0)
+        {
+            regexPattern.append(token, partStart, starIndex);
+            regexPattern.append(".*");
+            partStart = starIndex + 1;
+        }
+
+        regexPattern.append(token, partStart, token.length());
+
+        return regexPattern.toString();
+    }
+
+    /**
+     * Verifica daca expandarea porneste de la root
+     *
+     * @return true, daca calea este absoluta
+     *         false, altfel
+     */
+    public boolean isAbsolute()
+    {
+        return absolute;
+    }
+
+    /**
+     * Intoarce numarul de tokenuri ale caii
+     *
+     * @return numarul de tokenuri
+     */
+    public int getTokenCount()
+    {
+        return tokens.length;
+    }
+
+    /**
+     * Intoarce un token al caii
+     *
+     * @param index indexul tokenului
+     * @return tokenul
+     */
+    public String getToken(int index)
+    {
+        return tokens[index];
+    }
+
+    /**
+     * Intoarce patternul unui token
+     *
+     * @param index indexul tokenului
+     * @return patternul, daca tokenul contine *
+     *         null, altfel
+     */
+    public LazyPattern getPattern(int index)
+    {
+        return patterns[index];
+    }
+}
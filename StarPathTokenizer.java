@@ -1,165 +1,369 @@
-import java.util.LinkedList;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Iterator;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.RecursiveAction;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 /**
- * Imparte un path care contine * in tokenuri dupa caracterul /
+ * Expandeaza direct peste noduri un path care contine *(compilat intr-un StarPath)
+ * Expandarea se face nivel cu nivel: pentru fiecare token se pastreaza lista nodurilor la care s-a ajuns
+ * pana in acel moment, iar caile sunt construite doar cand nodurile trebuie afisate
+ * In modul paralel, un nivel cu * care are multe noduri de verificat este impartit in bucati verificate
+ * de taskuri separate, iar rezultatele sunt concatenate in ordinea bucatilor
  */
 public class StarPathTokenizer
 {
     /**
-     * Lista de pathuri gasita dupa ce toate * au fost inlocuite
+     * Numarul minim de noduri verificate la un nivel cu * pentru care verificarea este facuta in paralel
      */
-    private LinkedList<String> actualPaths;
+    private static final int PARALLEL_THRESHOLD = 1 << 13;
+    /**
+     * Numarul aproximativ de noduri verificate de un task
+     */
+    private static final int NODES_PER_TASK = 1 << 11;
 
+    /**
+     * Lista de noduri gasite dupa ce toate * au fost inlocuite, in ordine lexicografica
+     */
+    private ArrayList<FileSystem> matchedNodes;
+
+    /**
+     * Construieste un obiect de tip StarPathTokenizer si expandeaza calea primita
+     *
+     * @param path       calea ce contine *
+     * @param fileSystem o referinta catre sistemul de fisiere
+     */
     public StarPathTokenizer(String path, FileSystem fileSystem)
     {
-        actualPaths = new LinkedList<>();
+        this(new StarPath(path), fileSystem);
+    }
 
-        //prima data imparte pathul in tokenuri(inclusiv *) folosind PathTokenizer
-        PathTokenizer pathTokenizer = new PathTokenizer(path, fileSystem);
-        LinkedList<String> tokensQueue = pathTokenizer.getTokensQueue();
+    /**
+     * Construieste un obiect de tip StarPathTokenizer si expandeaza o cale deja compilata
+     *
+     * @param starPath   calea compilata
+     * @param fileSystem o referinta catre sistemul de fisiere
+     */
+    public StarPathTokenizer(StarPath starPath, FileSystem fileSystem)
+    {
+        matchedNodes = new ArrayList<>();
 
-        //Construieste toate caile posibile prin inlocuirea tuturor *
-        buildRealPaths(tokensQueue, fileSystem);
+        if(starPath.isAbsolute())
+        {
+            //Calea este absoluta, pornim de la root
+            matchedNodes.add(fileSystem.getChild("/"));
+        }
+        else
+        {
+            //Calea este relativa, pornim de la directorul curent
+            matchedNodes.add(FileSystem.getCurrentDirectory());
+        }
 
-        for(int i = 0; i < actualPaths.size(); i++)
+        for(int i = 0; i < starPath.getTokenCount() && !matchedNodes.isEmpty(); i++)
         {
-            //Verifica pathurile obtinute si le pastreaza doar pe cele care chiar exista
-            String potentialPath = actualPaths.get(i);
-            PathTokenizer tokenizer = new PathTokenizer(potentialPath, fileSystem);
-            LinkedList<String> queue = tokenizer.getTokensQueue();
+            String token = starPath.getToken(i);
+            LazyPattern pattern = starPath.getPattern(i);
 
-            FileSystem node = fileSystem.getReference(queue, NodeType.AnyNode);
-            if(node == null)
+            if(pattern != null)
+            {
+                matchedNodes = expandStar(matchedNodes, pattern.getPattern());
+            }
+            else if(token.equals(".."))
+            {
+                matchedNodes = expandParent(matchedNodes);
+            }
+            else
             {
-                //calea nu duce catre un nod valid, trebuie stearsa
-                actualPaths.remove(potentialPath);
-                i = i - 1;
+                matchedNodes = expandName(matchedNodes, token);
             }
         }
     }
 
-    void buildRealPaths(LinkedList<String> tokensQueue, FileSystem fileSystem)
+    /**
+     * Inlocuieste fiecare nod cu parintele lui(tokenul ..)
+     *
+     * @param nodes nodurile la care s-a ajuns pana acum
+     * @return parintii nodurilor, fara duplicate
+     */
+    private static ArrayList<FileSystem> expandParent(ArrayList<FileSystem> nodes)
     {
-        //recursivitatea se opreste cand lista de tokenuri este goala
-        if(tokensQueue.isEmpty())
+        ArrayList<FileSystem> parents = new ArrayList<>();
+
+        for(FileSystem node : nodes)
         {
-            return;
+            FileSystem parent = node.getNodeParent();
+
+            //.. are sens doar pe un director care nu este root
+            if(!(node instanceof FileSystemDirectory) || parent == null)
+            {
+                continue;
+            }
+
+            //nodurile cu acelasi parinte sunt consecutive, ajunge sa comparam cu ultimul parinte adaugat
+            if(parents.isEmpty() || parents.get(parents.size() - 1) != parent)
+            {
+                parents.add(parent);
+            }
         }
 
-        //ia tokenul curent si il sterge din lista
-        String token = tokensQueue.remove();
+        return parents;
+    }
+
+    /**
+     * Inlocuieste fiecare nod cu copilul lui care are numele dat(token fara *)
+     *
+     * @param nodes nodurile la care s-a ajuns pana acum
+     * @param name  numele copilului cautat
+     * @return copiii gasiti
+     */
+    private static ArrayList<FileSystem> expandName(ArrayList<FileSystem> nodes, String name)
+    {
+        ArrayList<FileSystem> children = new ArrayList<>();
 
-        if(!token.contains("*")) //tokenul nu este *
+        for(FileSystem node : nodes)
         {
-            //construieste calea din tokenurile adaugate pana acum
+            FileSystem child = node.getChild(name);
+
+            if(child != null)
+            {
+                children.add(child);
+            }
+        }
+
+        return children;
+    }
+
+    /**
+     * Verifica o bucata dintr-un nivel cu *: nodurile din bucata sunt verificate cu propriul Matcher,
+     * iar cele care respecta tokenul sunt salvate, in ordine, pe pozitia bucatii
+     */
+    private static class StarTask extends RecursiveAction
+    {
+        /**
+         * Versiunea formatului serializat(taskurile nu sunt serializate, dar RecursiveAction este Serializable)
+         */
+        private static final long serialVersionUID = 1L;
+        /**
+         * Bucatile nivelului, in ordine(fiecare bucata este o lista de foldere mici sau de parti ale unui folder mare)
+         */
+        private ArrayList<ArrayList<Collection<FileSystem>>> chunks;
+        /**
+         * Nodurile gasite in fiecare bucata(lista are dimensiunea fixa, fiecare task scrie doar pozitiile lui)
+         */
+        private ArrayList<ArrayList<FileSystem>> results;
+        /**
+         * Prima bucata verificata de task
+         */
+        private int from;
+        /**
+         * Prima bucata dupa cele verificate de task
+         */
+        private int to;
+        /**
+         * Patternul tokenului ce contine *
+         */
+        private Pattern pattern;
 
-            int i = 0;
-            int size = actualPaths.size();
+        /**
+         * Construieste un obiect de tip StarTask
+         *
+         * @param chunks  bucatile nivelului
+         * @param results nodurile gasite in fiecare bucata
+         * @param from    prima bucata verificata de task
+         * @param to      prima bucata dupa cele verificate de task
+         * @param pattern patternul tokenului ce contine *
+         */
+        StarTask(ArrayList<ArrayList<Collection<FileSystem>>> chunks, ArrayList<ArrayList<FileSystem>> results,
+                 int from, int to, Pattern pattern)
+        {
+            this.chunks = chunks;
+            this.results = results;
+            this.from = from;
+            this.to = to;
+            this.pattern = pattern;
+        }
 
-            if(size == 0)
+        /**
+         * Imparte intervalul de bucati in doua pana cand ramane o singura bucata, apoi o verifica
+         */
+        protected void compute()
+        {
+            if(to - from > 1)
             {
-                //daca lista de pathuri este goala, adauga tokenul direct
-                actualPaths.add(token);
+                int middle = (from + to) >>> 1;
+                invokeAll(new StarTask(chunks, results, from, middle, pattern),
+                          new StarTask(chunks, results, middle, to, pattern));
+                return;
             }
-            else
+
+            ArrayList<FileSystem> matched = new ArrayList<>();
+            Matcher matcher = pattern.matcher("");
+
+            for(Collection<FileSystem> part : chunks.get(from))
             {
-                while (i < size)
+                for(FileSystem child : part)
                 {
-                    String path = actualPaths.remove(); //ia pathul format pana in momentul curent
-                    StringBuilder builder = new StringBuilder(path);
-                    builder.append(token + "/"); //adauga tokenul si /
-                    actualPaths.addLast(builder.toString()); //adauga la noul path la final
-                    i++;
+                    if(matcher.reset(child.getName()).matches())
+                    {
+                        matched.add(child);
+                    }
                 }
             }
+
+            results.set(from, matched);
         }
-        else
+    }
+
+    /**
+     * Inlocuieste fiecare nod cu copiii lui al caror nume respecta tokenul cu *
+     *
+     * @param nodes   nodurile la care s-a ajuns pana acum
+     * @param pattern patternul tokenului ce contine *
+     * @return copiii care respecta tokenul, in ordine lexicografica
+     */
+    private static ArrayList<FileSystem> expandStar(ArrayList<FileSystem> nodes, Pattern pattern)
+    {
+        if(ParallelTasks.isEnabled())
         {
-            int i = 0;
-            int size = actualPaths.size();
+            return expandStarParallel(nodes, pattern);
+        }
 
-            String regexPattern = "";
+        ArrayList<FileSystem> children = new ArrayList<>();
+        Matcher matcher = pattern.matcher("");
 
-            /*
-                Daca tokenul nu este doar * si contine si text,
-                construieste un regex care sa faca match pe el
-             */
-            if(!token.equals("*"))
+        for(FileSystem node : nodes)
+        {
+            //Pe un fisier iteratorul nu intoarce niciun nod
+            Iterator<FileSystem> iter = node.createIterator();
+
+            while(iter.hasNext())
             {
-                if(token.charAt(0) == '*') //daca tokenul incepe cu *, de exemplu *file
-                {
-                    token = token.replace("*", "");
-                    regexPattern = ".*" + token + "$";
-                }
-                else if(token.charAt(token.length() - 1) == '*') //daca tokenul se termina cu * - file *
-                {
-                    token = token.replace("*", "");
-                    regexPattern = "^" + token + ".*";
-                }
-                else
+                FileSystem child = iter.next();
+
+                if(matcher.reset(child.getName()).matches())
                 {
-                    //* este undeva in interiorul sirului
-                    String[] parts = token.split("\\*"); //imparte in 2 subsiruri dupa *
-                    regexPattern = "^" + parts[0] + ".*" + parts[1] + "$";
+                    children.add(child);
                 }
             }
+        }
 
-            while (i < size)
-            {
-                String path = actualPaths.remove(); //ia pathul curent
+        return children;
+    }
 
-                PathTokenizer pathTokenizer = new PathTokenizer(path, fileSystem);
-                LinkedList<String> currentPathTokens = pathTokenizer.getTokensQueue();
+    /**
+     * Varianta paralela a lui expandStar
+     * Continutul folderelor este pregatit in threadul curent(copiile lazy sunt construite aici), apoi este
+     * impartit in bucati de aproximativ NODES_PER_TASK noduri: folderele mici consecutive sunt grupate,
+     * iar folderele mari sunt impartite in parti consecutive. Bucatile sunt verificate in paralel,
+     * iar rezultatele lor sunt concatenate in ordinea bucatilor, deci ordinea ramane aceeasi ca in varianta secventiala
+     *
+     * @param nodes   nodurile la care s-a ajuns pana acum
+     * @param pattern patternul tokenului ce contine *
+     * @return copiii care respecta tokenul, in ordine lexicografica
+     */
+    private static ArrayList<FileSystem> expandStarParallel(ArrayList<FileSystem> nodes, Pattern pattern)
+    {
+        ArrayList<Collection<FileSystem>> contents = new ArrayList<>(nodes.size());
+        long totalSize = 0;
 
-                //Gaseste directorul de la adresa construita pana in acel moment(fara *)
-                FileSystem dir = fileSystem.getReference(currentPathTokens, NodeType.DirectoryNode);
+        for(FileSystem node : nodes)
+        {
+            //Un fisier nu are noduri
+            if(node instanceof FileSystemDirectory)
+            {
+                Collection<FileSystem> children = ((FileSystemDirectory)node).getChildrenForParallelReading();
+                contents.add(children);
+                totalSize += children.size();
+            }
+        }
 
-                if (dir != null)
+        if(totalSize < PARALLEL_THRESHOLD)
+        {
+            //nivelul este prea mic pentru a merita impartit
+            ArrayList<FileSystem> children = new ArrayList<>();
+            Matcher matcher = pattern.matcher("");
+
+            for(Collection<FileSystem> content : contents)
+            {
+                for(FileSystem child : content)
                 {
-                    //Daca directorul exista, verifica fiecare nod din el
-                    Iterator<FileSystem> iter = dir.createIterator();
-                    while (iter.hasNext())
+                    if(matcher.reset(child.getName()).matches())
                     {
-                        FileSystem node = iter.next();
-
-                        boolean shouldAdd = true; // trebuie adaugat nodul?
-                        if(!regexPattern.isEmpty() && !node.getName().matches(regexPattern))
-                        {
-                            /*
-                                Daca expresia regulata nu este goala, tokenul nu a fost o simpla *
-                                Verifica daca numele nodului corespunde cu patternul construit
-                             */
-
-                            shouldAdd = false;
-                        }
-
-                        if(shouldAdd)
-                        {
-                            //Construieste calea adaugand numele nodului si o adauga la lista de cai
-                            StringBuilder fullPath = new StringBuilder(path);
-                            fullPath.append(node.getName() + "/");
-
-                            actualPaths.addLast(fullPath.toString());
-                        }
+                        children.add(child);
                     }
                 }
+            }
+
+            return children;
+        }
+
+        ArrayList<ArrayList<Collection<FileSystem>>> chunks = new ArrayList<>();
+        ArrayList<Collection<FileSystem>> chunk = new ArrayList<>();
+        int chunkSize = 0;
 
-                i++;
+        for(Collection<FileSystem> content : contents)
+        {
+            if(content.size() <= NODES_PER_TASK)
+            {
+                //folderele mici consecutive sunt grupate in aceeasi bucata
+                chunk.add(content);
+                chunkSize += content.size();
+            }
+            else
+            {
+                //un folder mare este copiat intr-un vector si impartit in parti consecutive, fiecare in propria bucata
+                List<FileSystem> children = Arrays.asList(content.toArray(new FileSystem[0]));
+                for(int start = 0; start < children.size(); start += NODES_PER_TASK)
+                {
+                    chunk.add(children.subList(start, Math.min(start + NODES_PER_TASK, children.size())));
+                    chunks.add(chunk);
+                    chunk = new ArrayList<>();
+                }
+                chunkSize = 0;
             }
+
+            if(chunkSize >= NODES_PER_TASK)
+            {
+                chunks.add(chunk);
+                chunk = new ArrayList<>();
+                chunkSize = 0;
+            }
+        }
+
+        if(!chunk.isEmpty())
+        {
+            chunks.add(chunk);
+        }
+
+        ArrayList<ArrayList<FileSystem>> results = new ArrayList<>(Collections.nCopies(chunks.size(), null));
+        ParallelTasks.pool().invoke(new StarTask(chunks, results, 0, chunks.size(), pattern));
+
+        int matchedCount = 0;
+        for(ArrayList<FileSystem> matched : results)
+        {
+            matchedCount += matched.size();
+        }
+
+        ArrayList<FileSystem> children = new ArrayList<>(matchedCount);
+        for(ArrayList<FileSystem> matched : results)
+        {
+            children.addAll(matched);
         }
 
-        //Apeleaza recursiv buildRealPaths pentru a construit toate caile posibile
-        buildRealPaths(tokensQueue, fileSystem);
+        return children;
     }
 
     /**
-     * Intoarce lista de cai posibile
+     * Intoarce nodurile gasite prin inlocuirea tuturor *
      *
-     * @return caile construite ca lista inlantuita
+     * @return nodurile ca lista, in ordine lexicografica
      */
-    public LinkedList<String> getActualPaths()
+    public ArrayList<FileSystem> getMatchedNodes()
     {
-        return actualPaths;
+        return matchedNodes;
     }
 }
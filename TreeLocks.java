@@ -0,0 +1,214 @@
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Blocarile folosite cand mai multe sesiuni lucreaza in paralel pe acelasi sistem de fisiere
+ *
+ * Fiecare folder este protejat de unul dintre STRIPES lacate read/write, ales dupa identitatea folderului
+ * Cititorii(find, getChild, listari) iau lacatul de citire doar cat timp copiaza continutul folderului,
+ * deci nu tin niciodata doua lacate in acelasi timp; scriitorii iau lacatul de scriere al folderelor modificate,
+ * iar cand sunt doua, le iau in ordinea indexului, astfel doua operatii nu se pot astepta reciproc
+ * Mutarile(mv) sunt serializate de un lacat separat: cat timp il detin, parintii nodurilor(si deci caile
+ * si adancimile) nu se pot schimba, iar verificarea ca destinatia nu este in subarborele sursei ramane valida
+ *
+ * Cat timp modul concurent nu este activat, toate metodele se intorc imediat, fara nicio blocare
+ */
+public class TreeLocks
+{
+    /**
+     * Numarul de lacate(putere a lui 2)
+     */
+    private static final int STRIPES = 256;
+    /**
+     * Lacatele folderelor
+     */
+    private static final ReentrantReadWriteLock[] stripes = new ReentrantReadWriteLock[STRIPES];
+    /**
+     * Lacatul care serializeaza mutarile
+     */
+    private static final ReentrantLock moveLock = new ReentrantLock();
+    /**
+     * true daca sistemul de fisiere este folosit de mai multe threaduri
+     * Este setat inainte de pornirea sesiunilor, deci nu trebuie sa fie volatile
+     */
+    private static boolean enabled = false;
+
+    static
+    {
+        for(int i = 0; i < STRIPES; i++)
+        {
+            stripes[i] = new ReentrantReadWriteLock();
+        }
+    }
+
+    /**
+     * Constructorul este private, clasa contine doar metode statice
+     */
+    private TreeLocks()
+    {
+
+    }
+
+    /**
+     * Activeaza modul concurent; trebuie apelata inainte ca sesiunile sa porneasca
+     * In modul concurent, cp copiaza imediat subarborele(copiile lazy nu sunt folosite)
+     */
+    public static void enable()
+    {
+        enabled = true;
+    }
+
+    /**
+     * Verifica daca modul concurent este activat
+     *
+     * @return true, daca sistemul de fisiere este folosit de mai multe threaduri
+     */
+    public static boolean isEnabled()
+    {
+        return enabled;
+    }
+
+    /**
+     * Intoarce indexul lacatului unui folder
+     *
+     * @param directory folderul
+     * @return indexul lacatului
+     */
+    private static int stripeOf(FileSystem directory)
+    {
+        int hash = System.identityHashCode(directory);
+        return (hash ^ (hash >>> 16)) & (STRIPES - 1);
+    }
+
+    /**
+     * Ia lacatul de citire al unui folder
+     *
+     * @param directory folderul
+     */
+    public static void lockRead(FileSystem directory)
+    {
+        if(enabled)
+        {
+            stripes[stripeOf(directory)].readLock().lock();
+        }
+    }
+
+    /**
+     * Elibereaza lacatul de citire al unui folder
+     *
+     * @param directory folderul
+     */
+    public static void unlockRead(FileSystem directory)
+    {
+        if(enabled)
+        {
+            stripes[stripeOf(directory)].readLock().unlock();
+        }
+    }
+
+    /**
+     * Ia lacatul de scriere al unui folder
+     *
+     * @param directory folderul
+     */
+    public static void lockWrite(FileSystem directory)
+    {
+        if(enabled)
+        {
+            stripes[stripeOf(directory)].writeLock().lock();
+        }
+    }
+
+    /**
+     * Elibereaza lacatul de scriere al unui folder
+     *
+     * @param directory folderul
+     */
+    public static void unlockWrite(FileSystem directory)
+    {
+        if(enabled)
+        {
+            stripes[stripeOf(directory)].writeLock().unlock();
+        }
+    }
+
+    /**
+     * Ia lacatele de scriere a doua foldere, in ordinea indexului(un lacat comun este luat o singura data)
+     *
+     * @param first  primul folder(poate sa fie null)
+     * @param second al doilea folder(poate sa fie null)
+     */
+    public static void lockWrite(FileSystem first, FileSystem second)
+    {
+        if(!enabled)
+        {
+            return;
+        }
+
+        int firstStripe = (first != null) ? stripeOf(first) : -1;
+        int secondStripe = (second != null) ? stripeOf(second) : -1;
+
+        int low = Math.min(firstStripe, secondStripe);
+        int high = Math.max(firstStripe, secondStripe);
+
+        if(low >= 0)
+        {
+            stripes[low].writeLock().lock();
+        }
+        if(high != low)
+        {
+            stripes[high].writeLock().lock();
+        }
+    }
+
+    /**
+     * Elibereaza lacatele luate de lockWrite(first, second)
+     *
+     * @param first  primul folder(poate sa fie null)
+     * @param second al doilea folder(poate sa fie null)
+     */
+    public static void unlockWrite(FileSystem first, FileSystem second)
+    {
+        if(!enabled)
+        {
+            return;
+        }
+
+        int firstStripe = (first != null) ? stripeOf(first) : -1;
+        int secondStripe = (second != null) ? stripeOf(second) : -1;
+
+        int low = Math.min(firstStripe, secondStripe);
+        int high = Math.max(firstStripe, secondStripe);
+
+        if(high != low)
+        {
+            stripes[high].writeLock().unlock();
+        }
+        if(low >= 0)
+        {
+            stripes[low].writeLock().unlock();
+        }
+    }
+
+    /**
+     * Ia lacatul mutarilor; trebuie luat inaintea lacatelor folderelor
+     */
+    public static void lockMove()
+    {
+        if(enabled)
+        {
+            moveLock.lock();
+        }
+    }
+
+    /**
+     * Elibereaza lacatul mutarilor
+     */
+    public static void unlockMove()
+    {
+        if(enabled)
+        {
+            moveLock.unlock();
+        }
+    }
+}
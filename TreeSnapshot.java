@@ -0,0 +1,344 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Iterator;
+
+/**
+ * Salveaza si incarca un sistem de fisiere intr-un format binar compact(snapshot)
+ *
+ * Formatul: un numar magic(4 octeti), urmat de nodurile arborelui in preordine, incepand cu root
+ * Fiecare nod este scris ca
+ *   tipul nodului(1 octet: 0 fisier, 1 folder)
+ *   lungimea numelui in octeti(varint) si numele(UTF-8)
+ *   pentru foldere, numarul de noduri continute(varint)
+ * Nodurile unui folder apar imediat dupa el, in ordine lexicografica, fiecare urmat de propriul subarbore
+ */
+public class TreeSnapshot
+{
+    /**
+     * Numarul magic de la inceputul unui snapshot("PBS1")
+     */
+    private static final int MAGIC = 0x50425331;
+    /**
+     * Tipul unui nod de tip fisier
+     */
+    private static final int FILE_NODE = 0;
+    /**
+     * Tipul unui nod de tip folder
+     */
+    private static final int DIRECTORY_NODE = 1;
+    /**
+     * Dimensiunea bufferelor folosite pentru citirea/scrierea fisierului
+     */
+    private static final int BUFFER_SIZE = 1 << 20;
+
+    /**
+     * Constructorul este private, clasa contine doar metode statice
+     */
+    private TreeSnapshot()
+    {
+
+    }
+
+    /**
+     * Folderul aflat in curs de incarcare si nodurile citite pana acum
+     */
+    private static class LoadFrame
+    {
+        /**
+         * Folderul caruia ii apartin nodurile
+         */
+        FileSystemDirectory directory;
+        /**
+         * Nodurile citite, in ordinea din snapshot
+         */
+        FileSystem[] children;
+        /**
+         * Numarul de noduri citite
+         */
+        int count;
+        /**
+         * Numarul de noduri ale folderului, asa cum apare in snapshot
+         */
+        int childCount;
+
+        /**
+         * Construieste un obiect de tip LoadFrame
+         *
+         * @param directory  folderul
+         * @param childCount numarul de noduri ale folderului
+         */
+        LoadFrame(FileSystemDirectory directory, int childCount)
+        {
+            this.directory = directory;
+            this.childCount = childCount;
+            //tabloul creste pe masura ce nodurile sunt citite, un numar corupt nu aloca inainte tot spatiul
+            this.children = new FileSystem[Math.min(childCount, 1024)];
+        }
+
+        /**
+         * Adauga un nod citit
+         *
+         * @param node nodul
+         */
+        void addChild(FileSystem node)
+        {
+            if(count == children.length)
+            {
+                children = Arrays.copyOf(children, (int)Math.min(childCount, 2L * children.length));
+            }
+
+            children[count++] = node;
+        }
+    }
+
+    /**
+     * Salveaza subarborele unui folder intr-un fisier
+     * Copiile lazy sunt citite prin sursa lor, fara sa fie construite
+     *
+     * @param root     radacina subarborelui salvat
+     * @param fileName numele fisierului
+     * @throws IOException in cazul unei erori de scriere
+     */
+    public static void save(FileSystemDirectory root, String fileName) throws IOException
+    {
+        try(DataOutputStream output = new DataOutputStream(
+                new BufferedOutputStream(new FileOutputStream(fileName), BUFFER_SIZE)))
+        {
+            save(root, output);
+        }
+    }
+
+    /**
+     * Scrie snapshotul subarborelui unui folder intr-un flux(care nu este inchis)
+     *
+     * @param root   radacina subarborelui salvat
+     * @param output fluxul in care se scrie
+     * @throws IOException in cazul unei erori de scriere
+     */
+    public static void save(FileSystemDirectory root, DataOutputStream output) throws IOException
+    {
+        output.writeInt(MAGIC);
+        writeNode(output, root);
+
+        //stiva de iteratori: fiecare folder deschis are un iterator peste nodurile inca nescrise
+        ArrayDeque<Iterator<FileSystem>> stack = new ArrayDeque<>();
+        stack.push(root.getSharedChildren().iterator());
+
+        while(!stack.isEmpty())
+        {
+            Iterator<FileSystem> iter = stack.peek();
+            if(!iter.hasNext())
+            {
+                stack.pop();
+                continue;
+            }
+
+            FileSystem node = iter.next();
+            writeNode(output, node);
+
+            if(node instanceof FileSystemDirectory)
+            {
+                stack.push(((FileSystemDirectory)node).getSharedChildren().iterator());
+            }
+        }
+    }
+
+    /**
+     * Incarca un sistem de fisiere dintr-un fisier
+     * Nodurile fiecarui folder sunt adunate intr-un tablou si adaugate in bloc cand folderul este complet
+     *
+     * @param fileName numele fisierului
+     * @return radacina sistemului de fisiere incarcat
+     * @throws IOException in cazul unei erori de citire sau daca fisierul nu este un snapshot valid
+     */
+    public static FileSystemDirectory load(String fileName) throws IOException
+    {
+        try(DataInputStream input = new DataInputStream(
+                new BufferedInputStream(new FileInputStream(fileName), BUFFER_SIZE)))
+        {
+            return load(input);
+        }
+    }
+
+    /**
+     * Citeste un sistem de fisiere dintr-un flux(care nu este inchis)
+     *
+     * @param input fluxul din care se citeste
+     * @return radacina sistemului de fisiere incarcat
+     * @throws IOException in cazul unei erori de citire sau daca fluxul nu contine un snapshot valid
+     */
+    public static FileSystemDirectory load(DataInputStream input) throws IOException
+    {
+        if(input.readInt() != MAGIC)
+        {
+            throw new IOException("not a snapshot");
+        }
+
+        byte[] nameBuffer = new byte[256];
+
+        if(input.readUnsignedByte() != DIRECTORY_NODE)
+        {
+            throw new IOException("root is not a directory");
+        }
+
+        String rootName = readName(input, nameBuffer);
+        if(!rootName.equals("/"))
+        {
+            throw new IOException("root is not /");
+        }
+
+        FileSystemDirectory root = new FileSystemDirectory(rootName);
+        ArrayDeque<LoadFrame> stack = new ArrayDeque<>();
+        stack.push(new LoadFrame(root, readCount(input)));
+
+        while(!stack.isEmpty())
+        {
+            LoadFrame frame = stack.peek();
+            if(frame.count == frame.childCount)
+            {
+                //toate nodurile folderului(si subarborii lor) au fost citite
+                stack.pop();
+                setChildren(frame);
+                continue;
+            }
+
+            int nodeType = input.readUnsignedByte();
+            String name = readName(input, nameBuffer);
+
+            if(nodeType == DIRECTORY_NODE)
+            {
+                FileSystemDirectory directory = new FileSystemDirectory(name);
+                frame.addChild(directory);
+                stack.push(new LoadFrame(directory, readCount(input)));
+            }
+            else if(nodeType == FILE_NODE)
+            {
+                frame.addChild(new FileSystemFile(name));
+            }
+            else
+            {
+                throw new IOException("invalid node type " + nodeType);
+            }
+        }
+
+        return root;
+    }
+
+    /**
+     * Adauga nodurile citite intr-un folder
+     * Daca nodurile nu sunt in ordine strict crescatoare(snapshot modificat), sunt adaugate pe rand prin add
+     *
+     * @param frame folderul si nodurile lui
+     */
+    private static void setChildren(LoadFrame frame)
+    {
+        SortedChildren children = new SortedChildren(frame.children, frame.count);
+
+        if(children.isStrictlySorted())
+        {
+            frame.directory.setChildren(children);
+        }
+        else
+        {
+            for(FileSystem node : children)
+            {
+                frame.directory.add(node);
+            }
+        }
+    }
+
+    /**
+     * Scrie un nod(fara subarborele lui)
+     *
+     * @param output fluxul in care se scrie
+     * @param node   nodul
+     * @throws IOException in cazul unei erori de scriere
+     */
+    private static void writeNode(DataOutputStream output, FileSystem node) throws IOException
+    {
+        boolean isDirectory = node instanceof FileSystemDirectory;
+        byte[] name = node.getName().getBytes(StandardCharsets.UTF_8);
+
+        output.writeByte(isDirectory ? DIRECTORY_NODE : FILE_NODE);
+        writeVarInt(output, name.length);
+        output.write(name);
+
+        if(isDirectory)
+        {
+            writeVarInt(output, ((FileSystemDirectory)node).getSharedChildren().size());
+        }
+    }
+
+    /**
+     * Citeste numele unui nod
+     *
+     * @param input      fluxul din care se citeste
+     * @param nameBuffer buffer refolosit pentru octetii numelui
+     * @return numele nodului
+     * @throws IOException in cazul unei erori de citire
+     */
+    static String readName(DataInputStream input, byte[] nameBuffer) throws IOException
+    {
+        int length = readCount(input);
+        byte[] bytes = (length <= nameBuffer.length) ? nameBuffer : new byte[length];
+
+        input.readFully(bytes, 0, length);
+        return new String(bytes, 0, length, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Citeste un numar nenegativ(o lungime sau un numar de noduri)
+     *
+     * @param input fluxul din care se citeste
+     * @return numarul citit
+     * @throws IOException in cazul unei erori de citire sau daca numarul nu este valid
+     */
+    static int readCount(DataInputStream input) throws IOException
+    {
+        int value = 0;
+
+        for(int shift = 0; shift < 32; shift += 7)
+        {
+            int b = input.readUnsignedByte();
+            value |= (b & 0x7F) << shift;
+
+            if((b & 0x80) == 0)
+            {
+                if(value < 0)
+                {
+                    break;
+                }
+                return value;
+            }
+        }
+
+        throw new IOException("invalid count");
+    }
+
+    /**
+     * Scrie un numar nenegativ pe cat mai putini octeti(cate 7 biti pe octet, cel mai semnificativ bit
+     * arata daca mai urmeaza octeti)
+     *
+     * @param output fluxul in care se scrie
+     * @param value  numarul
+     * @throws IOException in cazul unei erori de scriere
+     */
+    private static void writeVarInt(DataOutputStream output, int value) throws IOException
+    {
+        while((value & ~0x7F) != 0)
+        {
+            output.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+
+        output.writeByte(value);
+    }
+}
@@ -0,0 +1,119 @@
+#!/bin/sh
+# Testele de regresie: sh tests/run.sh [directorul claselor compilate, implicit directorul curent]
+#
+# Pentru fiecare script tests/cases/nume.in se verifica:
+#   - outputul si erorile unei rulari obisnuite sunt identice cu nume.out si nume.err
+#   - snapshotul salvat la final(--save) se incarca(--load) in acelasi arbore(ls -R /)
+#     si este salvat din nou identic, octet cu octet
+#   - o rulare cu --journal produce acelasi output, iar sistemul de fisiere refacut din jurnal
+#     si checkpoint este identic cu snapshotul rularii obisnuite
+#   - dupa ce tests/tail.in este adaugat in jurnal, un grup scris partial sau cu CRC gresit este
+#     ignorat la refacere(si taiat din jurnal), iar jurnalul intreg reface si comenzile din tail.in
+
+CLASSES=$(cd "${1:-.}" && pwd)
+TESTS=$(cd "$(dirname "$0")" && pwd)
+WORK=$(mktemp -d)
+trap 'rm -rf "$WORK"' EXIT
+
+passed=0
+failed=0
+
+fail()
+{
+    echo "FAIL $name: $1"
+    ok=false
+}
+
+run()
+{
+    java -cp "$CLASSES" Main "$@"
+}
+
+# partea din output de dupa ultimul index(ls -R / de la finalul scriptului)
+last_listing()
+{
+    sed -n "/^$2\$/,\$p" "$1" | sed 1d
+}
+
+# inlocuieste octetul de la pozitia data cu valoarea lui plus 1
+flip_byte()
+{
+    value=$(od -An -tu1 -j "$2" -N1 "$1" | tr -d ' ')
+    printf "\\$(printf '%o' $(( (value + 1) % 256 )))" | dd of="$1" bs=1 seek="$2" conv=notrunc 2>/dev/null
+}
+
+# jurnalul si checkpointul de dupa tail.in, inaintea fiecarei refaceri dintr-un jurnal modificat
+restore_journal()
+{
+    cp journal.full journal
+    cp checkpoint.full journal.checkpoint
+}
+
+printf 'ls -R /\n' > "$WORK/list.in"
+: > "$WORK/empty.in"
+
+for input in "$TESTS"/cases/*.in
+do
+    name=$(basename "$input" .in)
+    expected="$TESTS/cases/$name"
+    ok=true
+    cd "$WORK" && rm -rf ./*.snap journal*
+    cp "$input" script.in
+
+    # rulare obisnuita
+    run script.in out err --save direct.snap
+    cmp -s out "$expected.out" || fail "output differs from $name.out"
+    cmp -s err "$expected.err" || fail "errors differ from $name.err"
+
+    # snapshot: acelasi arbore dupa load, aceiasi octeti dupa un nou save
+    cat script.in list.in > listed.in
+    run listed.in out err
+    last_listing out $(($(wc -l < listed.in))) > direct.list
+    run --load direct.snap --save reloaded.snap list.in out err
+    last_listing out 1 > reloaded.list
+    cmp -s direct.list reloaded.list || fail "loaded snapshot lists a different tree"
+    cmp -s direct.snap reloaded.snap || fail "snapshot changes after load and save"
+
+    # jurnal: acelasi output, acelasi arbore dupa refacere(cu checkpointuri dese)
+    run --journal journal --checkpoint 5 script.in out err
+    cmp -s out "$expected.out" || fail "output with --journal differs from $name.out"
+    cmp -s err "$expected.err" || fail "errors with --journal differ from $name.err"
+    run --journal journal --save recovered.snap empty.in out err 2> stderr
+    cmp -s direct.snap recovered.snap || fail "journal replay does not rebuild the tree"
+    [ -s stderr ] && fail "journal replay: $(cat stderr)"
+
+    # grupurile adaugate de tail.in; refacerea fara ele trebuie sa dea arborele de mai sus
+    valid=$(wc -c < journal)
+    cp journal journal.before
+    run --journal journal --checkpoint 1000000 "$TESTS/tail.in" out err
+    cp journal journal.full
+    cp journal.checkpoint checkpoint.full
+    cmp -s -n "$valid" journal journal.before || fail "tail.in rewrote the journal instead of appending"
+
+    cat script.in "$TESTS/tail.in" > tail.in
+    run tail.in out err --save tail.snap
+    run --journal journal --save recovered.snap empty.in out err
+    cmp -s tail.snap recovered.snap || fail "journal replay misses the appended batches"
+
+    restore_journal
+    truncate -s $((valid + 5)) journal
+    run --journal journal --save recovered.snap empty.in out err
+    cmp -s direct.snap recovered.snap || fail "partial batch is not ignored"
+    [ "$(wc -c < journal)" -eq "$valid" ] || fail "partial batch is not truncated"
+
+    restore_journal
+    flip_byte journal $((valid + 8))
+    run --journal journal --save recovered.snap empty.in out err
+    cmp -s direct.snap recovered.snap || fail "batch with a bad checksum is not ignored"
+    [ "$(wc -c < journal)" -eq "$valid" ] || fail "batch with a bad checksum is not truncated"
+
+    if $ok
+    then
+        passed=$((passed + 1))
+    else
+        failed=$((failed + 1))
+    fi
+done
+
+echo "$passed passed, $failed failed"
+[ "$failed" -eq 0 ]